@@ -1,9 +1,18 @@
 package com.example.log.config;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author liuzhixin
@@ -11,17 +20,64 @@ import java.util.Map;
  */
 
 public class FieldEncryptConfig {
+    private static final Logger logger = LoggerFactory.getLogger(FieldEncryptConfig.class);
     private Map<String, EncryptField> encryptFields = new HashMap<>();
+    private String tenantMdcKey;                        // 为空时不区分租户
+    private String tenantKeySource = "PROPERTIES";      // 租户密钥来源类型
+    private int tenantCacheSize = 256;                  // 每个字段缓存的租户策略数
+    private String tenantOnMissingKey = "FAIL";         // 租户无密钥时的处理: FAIL / MASK / DEFAULT
+    private Map<String, String> tenantOptions = Collections.emptyMap();
 
     public Map<String, EncryptField> getEncryptFields() {
         return encryptFields;
     }
 
+    public String getTenantMdcKey() {
+        return tenantMdcKey;
+    }
+
+    public void setTenantMdcKey(String tenantMdcKey) {
+        this.tenantMdcKey = tenantMdcKey;
+    }
+
+    public String getTenantKeySource() {
+        return tenantKeySource;
+    }
+
+    public void setTenantKeySource(String tenantKeySource) {
+        this.tenantKeySource = tenantKeySource;
+    }
+
+    public int getTenantCacheSize() {
+        return tenantCacheSize;
+    }
+
+    public void setTenantCacheSize(int tenantCacheSize) {
+        this.tenantCacheSize = tenantCacheSize;
+    }
+
+    public String getTenantOnMissingKey() {
+        return tenantOnMissingKey;
+    }
+
+    public void setTenantOnMissingKey(String tenantOnMissingKey) {
+        this.tenantOnMissingKey = tenantOnMissingKey;
+    }
+
+    public Map<String, String> getTenantOptions() {
+        return tenantOptions;
+    }
+
+    public void setTenantOptions(Map<String, String> tenantOptions) {
+        this.tenantOptions = tenantOptions;
+    }
+
     public static class EncryptField {
         private String fieldName;
         private String encryptType; // "XXTEA" or "BASE64"
         private String encryptKey;  // 仅XXTEA需要
         private List<String> patterns;
+        private Map<String, String> options = Collections.emptyMap(); // 策略自定义配置,如MASK规则
         //或"(%s[:=])\\s*(.*?)(?=[,\\s}\\)]|$)"
         public EncryptField() {
             // 默认的匹配模式,使用非贪婪匹配防止匹配过多
@@ -60,6 +116,12 @@ public class FieldEncryptConfig {
         public void setPatterns(List<String> patterns) {
             this.patterns = patterns;
         }
+        public Map<String, String> getOptions() {
+            return options;
+        }
+        public void setOptions(Map<String, String> options) {
+            this.options = options;
+        }
     }
 
     public void addField(String fieldName, String encryptType, String encryptKey) {
@@ -67,6 +129,11 @@ public class FieldEncryptConfig {
     }
 
     public void addField(String fieldName, String encryptType, String encryptKey, List<String> patterns) {
+        addField(fieldName, encryptType, encryptKey, patterns, null);
+    }
+
+    public void addField(String fieldName, String encryptType, String encryptKey, List<String> patterns,
+                         Map<String, String> options) {
         EncryptField field = new EncryptField();
         field.setFieldName(fieldName);
         field.setEncryptType(encryptType);
@@ -74,7 +141,125 @@ public class FieldEncryptConfig {
         if (patterns!=null &&!patterns.isEmpty()){
             field.setPatterns(patterns);
         }
+        if (options != null) {
+            field.setOptions(options);
+        }
         encryptFields.put(fieldName, field);
     }
 
+    /**
+     * 从 classpath 下的 field-encrypt.properties 加载配置,不存在时使用默认配置
+     */
+    public static FieldEncryptConfig load() {
+        FieldEncryptConfig config = new FieldEncryptConfig();
+        try {
+            Properties props = new Properties();
+            InputStream asStream = FieldEncryptConfig.class.getClassLoader().getResourceAsStream("field-encrypt.properties");
+            if (asStream != null){
+                InputStreamReader reader = new InputStreamReader(asStream, StandardCharsets.UTF_8);
+                props.load(reader);
+                return  loadFromProperties(props);
+            } else {
+                logger.warn("No configuration file found, using default configuration");
+                throw new RuntimeException("No configuration file found");
+            }
+
+        } catch (Exception e) {
+            String errorMsg = String.format("Failed to load encryption configuration: %s. Using default configuration.",
+                    e.getMessage());
+            logger.warn(errorMsg, e);
+            // 使用默认配置(兼容没有配置文件)
+            config.addField("mobile", "XXTEA", "a$fHDF&G;lNFj%ea");
+        }
+        return config;
+    }
+
+    public static FieldEncryptConfig loadFromProperties(Properties props) {
+        FieldEncryptConfig config = new FieldEncryptConfig();
+
+        // 读取字段列表
+        String[] fields = props.getProperty("encrypt.fields", "mobile").split(",");
+
+        for (String field : fields) {
+            String fieldName = field.trim();
+            String encryptType = props.getProperty(fieldName + ".encrypt.type", "XXTEA");
+            String encryptKey = props.getProperty(fieldName + ".encrypt.key", "a$fHDF&G;lNFj%ea");
+
+            // 读取自定义匹配模式（如果有）
+            List<String> patterns = null;
+            String patternsStr = props.getProperty(fieldName + ".patterns");
+            if (patternsStr != null && !patternsStr.isEmpty()) {
+                // 分割模式并去除空白字符
+                patterns = Arrays.stream(patternsStr.split(","))
+                        .map(String::trim)
+                        .filter(s -> !s.isEmpty())
+                        .collect(Collectors.toList());
+            }
+
+            // 字段级策略配置,如 phone.mask.prefix=3 -> mask.prefix=3
+            Map<String, String> options = new HashMap<>();
+            String prefix = fieldName + ".";
+            for (String name : props.stringPropertyNames()) {
+                if (name.startsWith(prefix)) {
+                    options.put(name.substring(prefix.length()), props.getProperty(name));
+                }
+            }
+
+            config.addField(fieldName, encryptType, encryptKey, patterns, options);
+        }
+
+        // 多租户配置,如 encrypt.tenant.mdcKey=tenantId
+        Map<String, String> tenantOptions = new HashMap<>();
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith("encrypt.tenant.")) {
+                tenantOptions.put(name.substring("encrypt.tenant.".length()), props.getProperty(name).trim());
+            }
+        }
+        String mdcKey = tenantOptions.get("mdcKey");
+        if (mdcKey != null && !mdcKey.isEmpty()) {
+            config.setTenantMdcKey(mdcKey);
+            config.setTenantKeySource(tenantOptions.getOrDefault("keySource", "PROPERTIES").toUpperCase());
+            config.setTenantCacheSize(parseCacheSize(tenantOptions.get("cacheSize")));
+            config.setTenantOnMissingKey(parseOnMissingKey(tenantOptions.get("onMissingKey")));
+            config.setTenantOptions(tenantOptions);
+        }
+
+        return config;
+    }
+
+    /**
+     * 租户缓存配置错误时仅告警,不影响字段加密配置
+     */
+    private static int parseCacheSize(String value) {
+        int defaultSize = 256;
+        if (value == null || value.isEmpty()) {
+            return defaultSize;
+        }
+        try {
+            int size = Integer.parseInt(value);
+            if (size > 0) {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // 按默认值处理
+        }
+        logger.warn("Invalid encrypt.tenant.cacheSize: {}, use default: {}", value, defaultSize);
+        return defaultSize;
+    }
+
+    /**
+     * 配置错误时使用 FAIL,不会退回到共享密钥
+     */
+    private static String parseOnMissingKey(String value) {
+        if (value == null || value.isEmpty()) {
+            return "FAIL";
+        }
+        String mode = value.toUpperCase();
+        if ("FAIL".equals(mode) || "MASK".equals(mode) || "DEFAULT".equals(mode)) {
+            return mode;
+        }
+        logger.warn("Invalid encrypt.tenant.onMissingKey: {}, use default: FAIL", value);
+        return "FAIL";
+    }
+
 }
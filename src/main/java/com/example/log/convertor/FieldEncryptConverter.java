@@ -1,20 +1,17 @@
 package com.example.log.convertor;
 
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import com.example.log.spi.EncryptStrategyFactory;
+import com.example.log.spi.TenantKeySourceFactory;
+import com.example.log.tenant.TenantKeySource;
+import com.example.log.tenant.TenantStrategyCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,25 +29,25 @@ public class FieldEncryptConverter extends ClassicConverter {
     private static final Logger logger = LoggerFactory.getLogger(FieldEncryptConverter.class);
     private FieldEncryptConfig config;
     private Map<String, List<Pattern>> fieldPatterns = new HashMap<>();
-    private Map<String, EncryptStrategy> encryptStrategies = new HashMap<>();
+    private Map<String, TenantStrategyCache> encryptStrategies = new HashMap<>();
+    private String tenantMdcKey;
 
 
     @Override
     public void start() {
-        config = loadConfig();
+        config = FieldEncryptConfig.load();
+        tenantMdcKey = config.getTenantMdcKey();
+        TenantKeySource keySource = TenantKeySourceFactory.createKeySource(config);
         // 为每个字段编译正则并创建加密策略
         config.getEncryptFields().forEach((fieldName, field) -> {
             try {
                 // 编译正则
-                List<Pattern> patterns = field.getPatterns().stream()
-                        .map(pattern -> Pattern.compile(String.format(pattern, fieldName)))
-                        .collect(Collectors.toList());
-                fieldPatterns.put(fieldName, patterns);
-
-                // 创建加密策略
-                EncryptStrategy strategy = EncryptStrategyFactory.createStrategy(field.getEncryptType(), field.getEncryptKey());
+                List<Pattern> patterns = compilePatterns(field);
 
-                encryptStrategies.put(fieldName, strategy);
+                // 创建加密策略(按租户缓存),成功后再登记正则,避免日志输出时找不到策略
+                encryptStrategies.put(fieldName, new TenantStrategyCache(field, keySource,
+                        config.getTenantCacheSize(), config.getTenantOnMissingKey()));
+                fieldPatterns.put(fieldName, patterns);
             } catch (Exception e) {
                 logger.warn("Failed to compile pattern for field: {}, not use encrypt, error: {}", fieldName, e.getMessage(), e);
             }
@@ -61,6 +58,7 @@ public class FieldEncryptConverter extends ClassicConverter {
     @Override
     public String convert(ILoggingEvent event) {
         String message = event.getFormattedMessage();
+        String tenant = tenantMdcKey == null ? null : event.getMDCPropertyMap().get(tenantMdcKey);
 
             // 对每个字段进行加密
             for (Map.Entry<String, List<Pattern>> entry : fieldPatterns.entrySet()) {
@@ -68,7 +66,7 @@ public class FieldEncryptConverter extends ClassicConverter {
                 if (message.contains(fieldName)) {
                     for (Pattern pattern : entry.getValue()) {
                         try {
-                            message = encryptField(message, pattern, fieldName);
+                            message = encryptField(message, pattern, encryptStrategies.get(fieldName).get(tenant));
                         } catch (Exception e) {
                             //message = handleEncryptionError(message, fieldName, e);
                             logger.warn("Failed to encrypt field: {}, error: {}", fieldName, e.getMessage(), e);
@@ -110,84 +108,74 @@ public class FieldEncryptConverter extends ClassicConverter {
         matcher.appendTail(sb);
         return sb.toString();
     }*/
+    /**
+     * 将字段的匹配规则中的 %s 替换为字段名后编译
+     */
+    public static List<Pattern> compilePatterns(FieldEncryptConfig.EncryptField field) {
+        return field.getPatterns().stream()
+                .map(pattern -> Pattern.compile(String.format(pattern, field.getFieldName())))
+                .collect(Collectors.toList());
+    }
+
     //todo:这个方法是针对特定正则组的,若使用方提供匹配规则需spi
     //"(\\\\*\"*%s\\\\*\"*\\s*[:=]\\s*)(\\\\*\"*)(.*?)(?=,|\\}|\\)|$"
-    private String encryptField(String message, Pattern pattern, String fieldName) {
+    public static String encryptField(String message, Pattern pattern, EncryptStrategy strategy) {
+        return rewriteField(message, pattern, (value, start, end, out) -> {
+            strategy.encrypt(value, start, end, out);
+            return true;
+        });
+    }
+
+    /**
+     * 与 encryptField 使用相同的匹配规则,由 rewriter 写出新值;rewriter 返回false时整个匹配原样保留
+     */
+    public static String rewriteField(String message, Pattern pattern, ValueRewriter rewriter) {
         Matcher matcher = pattern.matcher(message);
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = null;
+        int last = 0;
         while (matcher.find()) {
-            String replacement;
             int count = matcher.groupCount();
+            if (count >= 3 && matcher.start(1) < 0) {
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(message.length() + 32);
+            }
+            sb.append(message, last, matcher.start());
+            int mark = sb.length();
+            sb.append(message, matcher.start(1), matcher.end(1));
+            boolean rewritten;
             if (count >= 3) {
-                if (matcher.group(1) == null) {
-                    continue;
+                // 直接写入输出缓冲区,去掉值末尾的转义符和引号
+                int valueStart = matcher.start(3);
+                int valueEnd = matcher.end(3);
+                while (valueEnd > valueStart && (message.charAt(valueEnd - 1) == '\\' || message.charAt(valueEnd - 1) == '"')) {
+                    valueEnd--;
                 }
-                String value = matcher.group(3).replaceAll("[\\\\\"]+$", "");
-                String encrypted = encryptStrategies.get(fieldName).encrypt(value);
-                String replacement1 = matcher.group(1) + matcher.group(2) + encrypted +
-                        matcher.group(2);
-                replacement = replacement1.replace("\\", "\\\\");
+                sb.append(message, matcher.start(2), matcher.end(2));
+                rewritten = rewriter.rewrite(message, valueStart, valueEnd, sb);
+                sb.append(message, matcher.start(2), matcher.end(2));
             } else {
-                String encrypt = encryptStrategies.get(fieldName).encrypt(matcher.group(2));
-                replacement = matcher.group(1) + encrypt +
-                        (matcher.groupCount() == 3 ? matcher.group(3) : "");
+                rewritten = rewriter.rewrite(message, matcher.start(2), matcher.end(2), sb);
             }
-            matcher.appendReplacement(sb, replacement);
-        }
-        matcher.appendTail(sb);
-        return sb.toString();
-    }
-
-    private FieldEncryptConfig loadConfig() {
-        FieldEncryptConfig config = new FieldEncryptConfig();
-        try {
-            Properties props = new Properties();
-            InputStream asStream = getClass().getClassLoader().getResourceAsStream("field-encrypt.properties");
-            if (asStream != null){
-                InputStreamReader reader = new InputStreamReader(asStream, StandardCharsets.UTF_8);
-                props.load(reader);
-                return  loadFromProperties(props);
-            } else {
-                logger.warn("No configuration file found, using default configuration");
-                throw new RuntimeException("No configuration file found");
+            if (!rewritten) {
+                sb.setLength(mark);
+                sb.append(message, matcher.start(), matcher.end());
             }
-
-        } catch (Exception e) {
-            String errorMsg = String.format("Failed to load encryption configuration: %s. Using default configuration.",
-                    e.getMessage());
-            logger.warn(errorMsg, e);
-            // 使用默认配置(兼容没有配置文件)
-            config.addField("mobile", "XXTEA", "a$fHDF&G;lNFj%ea");
+            last = matcher.end();
         }
-        return config;
-    }
-
-    private FieldEncryptConfig loadFromProperties(Properties props) {
-        FieldEncryptConfig config = new FieldEncryptConfig();
-
-        // 读取字段列表
-        String[] fields = props.getProperty("encrypt.fields", "mobile").split(",");
-
-        for (String field : fields) {
-            String fieldName = field.trim();
-            String encryptType = props.getProperty(fieldName + ".encrypt.type", "XXTEA");
-            String encryptKey = props.getProperty(fieldName + ".encrypt.key", "a$fHDF&G;lNFj%ea");
-
-            // 读取自定义匹配模式（如果有）
-            List<String> patterns = null;
-            String patternsStr = props.getProperty(fieldName + ".patterns");
-            if (patternsStr != null && !patternsStr.isEmpty()) {
-                // 分割模式并去除空白字符
-                patterns = Arrays.stream(patternsStr.split(","))
-                        .map(String::trim)
-                        .filter(s -> !s.isEmpty())
-                        .collect(Collectors.toList());
-            }
-
-            config.addField(fieldName, encryptType, encryptKey, patterns);
+        if (sb == null) {
+            return message;
         }
+        sb.append(message, last, message.length());
+        return sb.toString();
+    }
 
-        return config;
+    /**
+     * 将 value[start, end) 改写后写入 out,返回false表示不改写
+     */
+    public interface ValueRewriter {
+        boolean rewrite(CharSequence value, int start, int end, StringBuilder out);
     }
 
-}
+}
\ No newline at end of file
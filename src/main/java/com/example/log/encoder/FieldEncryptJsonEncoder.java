@@ -0,0 +1,371 @@
+package com.example.log.encoder;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MessageFormatter;
+
+import com.example.log.config.FieldEncryptConfig;
+import com.example.log.convertor.FieldEncryptConverter;
+import com.example.log.encrypt.EncryptStrategy;
+import com.example.log.spi.TenantKeySourceFactory;
+import com.example.log.tenant.TenantKeySource;
+import com.example.log.tenant.TenantStrategyCache;
+import com.example.log.util.Utf8Util;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.encoder.EncoderBase;
+import ch.qos.logback.core.util.CachingDateFormatter;
+
+/**
+ * 输出单行JSON的Encoder,按键名直接加密,不对渲染后的文本做正则扫描
+ * <p>
+ * MDC 写入 "mdc" 对象,参数中的 Map / Map.Entry 写入 "args" 对象,避免与固定字段重名;键命中 field-encrypt.properties 中配置的字段时,
+ * 调用对应的 EncryptStrategy 直接写入输出缓冲区;message 中这些参数同样以密文渲染。
+ * message 中的其余自由文本(如 "mobile:{}" 的字符串参数、POJO 的 toString)默认不扫描,
+ * 开启 scanMessage 后按字段的匹配规则扫描加密,与 %fieldEncrypt 一致
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class FieldEncryptJsonEncoder extends EncoderBase<ILoggingEvent> {
+    private static final Logger logger = LoggerFactory.getLogger(FieldEncryptJsonEncoder.class);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * 超过该容量的缓冲区不再复用,避免偶发大日志长期占用内存
+     */
+    private static final int MAX_REUSE_CAPACITY = 8192;
+
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(512));
+    private final ThreadLocal<StringBuilder> scratches = ThreadLocal.withInitial(() -> new StringBuilder(64));
+    private final ThreadLocal<Set<String>> writtenKeys = ThreadLocal.withInitial(HashSet::new);
+    private final Map<String, TenantStrategyCache> encryptStrategies = new HashMap<>();
+    private final Map<String, List<Pattern>> fieldPatterns = new HashMap<>();
+    private String tenantMdcKey;
+    private CachingDateFormatter dateFormatter;
+
+    private String timestampPattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    private boolean includeMdc = true;
+    private boolean includeArguments = true;
+    private boolean scanMessage = false;
+
+    @Override
+    public void start() {
+        FieldEncryptConfig config = FieldEncryptConfig.load();
+        tenantMdcKey = config.getTenantMdcKey();
+        TenantKeySource keySource = TenantKeySourceFactory.createKeySource(config);
+        config.getEncryptFields().forEach((fieldName, field) -> {
+            try {
+                TenantStrategyCache strategies = new TenantStrategyCache(field, keySource,
+                        config.getTenantCacheSize(), config.getTenantOnMissingKey());
+                if (scanMessage) {
+                    fieldPatterns.put(fieldName, FieldEncryptConverter.compilePatterns(field));
+                }
+                encryptStrategies.put(fieldName, strategies);
+            } catch (Exception e) {
+                logger.warn("Failed to create strategy for field: {}, not use encrypt, error: {}", fieldName, e.getMessage(), e);
+            }
+        });
+        if (!scanMessage) {
+            logger.warn("FieldEncryptJsonEncoder does not scan message text, fields like \"mobile:{}\" in message are not encrypted,"
+                    + " set <scanMessage>true</scanMessage> to encrypt them");
+        }
+        dateFormatter = new CachingDateFormatter(timestampPattern);
+        super.start();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        StringBuilder sb = buffers.get();
+        sb.setLength(0);
+        sb.append('{');
+        writeKey(sb, "@timestamp", true);
+        writeString(sb, dateFormatter.format(event.getTimeStamp()));
+        writeKey(sb, "level", false);
+        writeString(sb, event.getLevel().toString());
+        writeKey(sb, "thread", false);
+        writeString(sb, event.getThreadName());
+        writeKey(sb, "logger", false);
+        writeString(sb, event.getLoggerName());
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        String tenant = tenantMdcKey == null || mdc == null ? null : mdc.get(tenantMdcKey);
+        writeKey(sb, "message", false);
+        writeString(sb, scanMessage ? scanMessage(event.getFormattedMessage(), tenant) : renderMessage(event, tenant));
+        if (includeMdc && mdc != null && !mdc.isEmpty()) {
+            writeKey(sb, "mdc", false);
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                writeField(sb, entry.getKey(), entry.getValue(), tenant, first);
+                first = false;
+            }
+            sb.append('}');
+        }
+        if (includeArguments) {
+            writeArguments(sb, event.getArgumentArray(), tenant);
+        }
+
+        IThrowableProxy tp = event.getThrowableProxy();
+        if (tp != null) {
+            writeKey(sb, "stack_trace", false);
+            writeString(sb, ThrowableProxyUtil.asString(tp));
+        }
+        sb.append('}').append(CoreConstants.LINE_SEPARATOR);
+
+        byte[] bytes = Utf8Util.encode(sb, 0, sb.length());
+        if (sb.capacity() > MAX_REUSE_CAPACITY) {
+            buffers.remove();
+        }
+        return bytes;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    /**
+     * 参数中的 Map / Map.Entry 写入 "args" 对象,同名键只保留第一个
+     */
+    private void writeArguments(StringBuilder sb, Object[] args, String tenant) {
+        if (args == null) {
+            return;
+        }
+        Set<String> written = null;
+        for (Object arg : args) {
+            if (arg instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) arg).entrySet()) {
+                    written = writeArgument(sb, written, String.valueOf(entry.getKey()), entry.getValue(), tenant);
+                }
+            } else if (arg instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) arg;
+                written = writeArgument(sb, written, String.valueOf(entry.getKey()), entry.getValue(), tenant);
+            }
+        }
+        if (written != null) {
+            sb.append('}');
+        }
+    }
+
+    private Set<String> writeArgument(StringBuilder sb, Set<String> written, String key, Object value, String tenant) {
+        if (written == null) {
+            written = writtenKeys.get();
+            written.clear();
+            writeKey(sb, "args", false);
+            sb.append('{');
+        } else if (written.contains(key)) {
+            return written;
+        }
+        writeField(sb, key, value, tenant, written.isEmpty());
+        written.add(key);
+        return written;
+    }
+
+    /**
+     * 按字段的匹配规则扫描 message,与 %fieldEncrypt 相同;Map / Map.Entry 参数的 toString 同样会被匹配,无需重新渲染
+     */
+    private String scanMessage(String message, String tenant) {
+        for (Map.Entry<String, List<Pattern>> entry : fieldPatterns.entrySet()) {
+            String fieldName = entry.getKey();
+            if (message.contains(fieldName)) {
+                for (Pattern pattern : entry.getValue()) {
+                    try {
+                        message = FieldEncryptConverter.encryptField(message, pattern, encryptStrategies.get(fieldName).get(tenant));
+                    } catch (Exception e) {
+                        logger.warn("Failed to encrypt field: {}, error: {}", fieldName, e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        return message;
+    }
+
+    /**
+     * 参数中的 Map / Map.Entry 含有加密字段时,以替换为密文后的参数重新渲染 message,避免占位符输出明文
+     */
+    private String renderMessage(ILoggingEvent event, String tenant) {
+        Object[] args = event.getArgumentArray();
+        if (args == null) {
+            return event.getFormattedMessage();
+        }
+        Object[] replaced = null;
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            Object masked = arg;
+            if (arg instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) arg;
+                for (Object key : map.keySet()) {
+                    if (encryptStrategies.containsKey(String.valueOf(key))) {
+                        Map<Object, Object> copy = new LinkedHashMap<>(map.size());
+                        for (Map.Entry<?, ?> entry : map.entrySet()) {
+                            copy.put(entry.getKey(), encryptedOrSelf(String.valueOf(entry.getKey()), entry.getValue(), tenant));
+                        }
+                        masked = copy;
+                        break;
+                    }
+                }
+            } else if (arg instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) arg;
+                String key = String.valueOf(entry.getKey());
+                if (encryptStrategies.containsKey(key)) {
+                    masked = new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), encryptedOrSelf(key, entry.getValue(), tenant));
+                }
+            }
+            if (masked != arg) {
+                if (replaced == null) {
+                    replaced = args.clone();
+                }
+                replaced[i] = masked;
+            }
+        }
+        return replaced == null ? event.getFormattedMessage()
+                : MessageFormatter.arrayFormat(event.getMessage(), replaced).getMessage();
+    }
+
+    private Object encryptedOrSelf(String key, Object value, String tenant) {
+        if (value == null || !encryptStrategies.containsKey(key)) {
+            return value;
+        }
+        CharSequence encrypted = encrypt(key, value, tenant);
+        return encrypted == null ? null : encrypted.toString();
+    }
+
+    /**
+     * 加密结果写入线程内复用的缓冲区,加密失败返回null(不输出明文)
+     */
+    private CharSequence encrypt(String key, Object value, String tenant) {
+        EncryptStrategy strategy = encryptStrategies.get(key).get(tenant);
+        CharSequence cs = value instanceof CharSequence ? (CharSequence) value : value.toString();
+        StringBuilder scratch = scratches.get();
+        scratch.setLength(0);
+        try {
+            strategy.encrypt(cs, 0, cs.length(), scratch);
+            return scratch;
+        } catch (Exception e) {
+            logger.warn("Failed to encrypt field: {}, error: {}", key, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private void writeField(StringBuilder sb, String key, Object value, String tenant, boolean first) {
+        writeKey(sb, key, first);
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        if (encryptStrategies.containsKey(key)) {
+            writeString(sb, encrypt(key, value, tenant));
+        } else if (isJsonNumber(value) || value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            writeString(sb, value instanceof CharSequence ? (CharSequence) value : value.toString());
+        }
+    }
+
+    /**
+     * NaN / Infinity 不是合法的JSON数字,按字符串输出
+     */
+    private static boolean isJsonNumber(Object value) {
+        if (value instanceof Double) {
+            return Double.isFinite((Double) value);
+        }
+        if (value instanceof Float) {
+            return Float.isFinite((Float) value);
+        }
+        return value instanceof Number;
+    }
+
+    private static void writeKey(StringBuilder sb, String key, boolean first) {
+        if (!first) {
+            sb.append(',');
+        }
+        writeString(sb, key);
+        sb.append(':');
+    }
+
+    private static void writeString(StringBuilder sb, CharSequence value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        int len = value.length();
+        int last = 0;
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            sb.append(value, last, i);
+            last = i + 1;
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+        }
+        sb.append(value, last, len).append('"');
+    }
+
+    public String getTimestampPattern() {
+        return timestampPattern;
+    }
+
+    public void setTimestampPattern(String timestampPattern) {
+        this.timestampPattern = timestampPattern;
+    }
+
+    public boolean isIncludeMdc() {
+        return includeMdc;
+    }
+
+    public void setIncludeMdc(boolean includeMdc) {
+        this.includeMdc = includeMdc;
+    }
+
+    public boolean isScanMessage() {
+        return scanMessage;
+    }
+
+    public void setScanMessage(boolean scanMessage) {
+        this.scanMessage = scanMessage;
+    }
+
+    public boolean isIncludeArguments() {
+        return includeArguments;
+    }
+
+    public void setIncludeArguments(boolean includeArguments) {
+        this.includeArguments = includeArguments;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.log.encrypt;
+
+import java.util.Arrays;
+
+/**
+ * 密文的文本编码,查表实现,直接写入输出缓冲区
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public enum CipherEncoding {
+    /**
+     * 标准Base64,带填充(默认,与历史日志兼容)
+     */
+    BASE64("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/", true),
+    /**
+     * URL安全Base64,无填充
+     */
+    BASE64URL("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_", false),
+    /**
+     * ZeroMQ Base85,每4字节编码为5个字符,输入长度需为4的倍数(XXTEA密文总是满足)
+     */
+    Z85("0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ.-:+=^!/*?&<>()[]{}@%$#", false);
+
+    private final char[] alphabet;
+    private final byte[] decodeTable = new byte[128];
+    private final boolean padding;
+
+    CipherEncoding(String alphabet, boolean padding) {
+        this.alphabet = alphabet.toCharArray();
+        this.padding = padding;
+        Arrays.fill(decodeTable, (byte) -1);
+        for (int i = 0; i < this.alphabet.length; i++) {
+            decodeTable[this.alphabet[i]] = (byte) i;
+        }
+    }
+
+    public static CipherEncoding of(String name) {
+        return name == null || name.trim().isEmpty() ? BASE64 : valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * 编码后的字符数
+     */
+    public int encodedLength(int byteLength) {
+        if (this == Z85) {
+            return byteLength / 4 * 5;
+        }
+        return padding ? (byteLength + 2) / 3 * 4 : (byteLength * 4 + 2) / 3;
+    }
+
+    public void encode(byte[] src, StringBuilder out) {
+        if (this == Z85) {
+            encodeZ85(src, out);
+        } else {
+            encodeBase64(src, out);
+        }
+    }
+
+    public String encode(byte[] src) {
+        StringBuilder sb = new StringBuilder(encodedLength(src.length));
+        encode(src, sb);
+        return sb.toString();
+    }
+
+    /**
+     * 解码后的字节数,长度或字符不合法时返回-1
+     */
+    public int decodedLength(CharSequence src) {
+        int len = src.length();
+        if (this == Z85) {
+            if (len % 5 != 0) {
+                return -1;
+            }
+        } else {
+            while (len > 0 && src.charAt(len - 1) == '=') {
+                len--;
+            }
+            if (len % 4 == 1) {
+                return -1;
+            }
+        }
+        long block = 0;
+        for (int i = 0; i < len; i++) {
+            char c = src.charAt(i);
+            if (c >= 128 || decodeTable[c] < 0) {
+                return -1;
+            }
+            if (this == Z85) {
+                block = block * 85 + decodeTable[c];
+                if (i % 5 == 4) {
+                    if (block > 0xFFFFFFFFL) {
+                        return -1;
+                    }
+                    block = 0;
+                }
+            }
+        }
+        return this == Z85 ? len / 5 * 4 : len * 3 / 4;
+    }
+
+    public byte[] decode(CharSequence src) {
+        return this == Z85 ? decodeZ85(src) : decodeBase64(src);
+    }
+
+    private void encodeBase64(byte[] src, StringBuilder out) {
+        int full = src.length / 3 * 3;
+        int i = 0;
+        while (i < full) {
+            int bits = (src[i++] & 0xFF) << 16 | (src[i++] & 0xFF) << 8 | (src[i++] & 0xFF);
+            out.append(alphabet[bits >>> 18])
+                    .append(alphabet[(bits >>> 12) & 0x3F])
+                    .append(alphabet[(bits >>> 6) & 0x3F])
+                    .append(alphabet[bits & 0x3F]);
+        }
+        int remain = src.length - full;
+        if (remain == 1) {
+            int bits = (src[i] & 0xFF) << 16;
+            out.append(alphabet[bits >>> 18]).append(alphabet[(bits >>> 12) & 0x3F]);
+            if (padding) {
+                out.append("==");
+            }
+        } else if (remain == 2) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8;
+            out.append(alphabet[bits >>> 18])
+                    .append(alphabet[(bits >>> 12) & 0x3F])
+                    .append(alphabet[(bits >>> 6) & 0x3F]);
+            if (padding) {
+                out.append('=');
+            }
+        }
+    }
+
+    private byte[] decodeBase64(CharSequence src) {
+        int len = src.length();
+        while (len > 0 && src.charAt(len - 1) == '=') {
+            len--;
+        }
+        if (len % 4 == 1) {
+            throw new IllegalArgumentException("Illegal base64 length: " + src.length());
+        }
+        byte[] out = new byte[len * 3 / 4];
+        int bits = 0;
+        int count = 0;
+        int p = 0;
+        for (int i = 0; i < len; i++) {
+            bits = bits << 6 | lookup(src.charAt(i));
+            if (++count == 4) {
+                out[p++] = (byte) (bits >>> 16);
+                out[p++] = (byte) (bits >>> 8);
+                out[p++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 2) {
+            out[p] = (byte) (bits >>> 4);
+        } else if (count == 3) {
+            out[p++] = (byte) (bits >>> 10);
+            out[p] = (byte) (bits >>> 2);
+        }
+        return out;
+    }
+
+    private void encodeZ85(byte[] src, StringBuilder out) {
+        if ((src.length & 3) != 0) {
+            throw new IllegalArgumentException("Z85 input length must be a multiple of 4: " + src.length);
+        }
+        for (int i = 0; i < src.length; i += 4) {
+            long value = ((src[i] & 0xFFL) << 24) | ((src[i + 1] & 0xFF) << 16) | ((src[i + 2] & 0xFF) << 8) | (src[i + 3] & 0xFF);
+            out.append(alphabet[(int) (value / 52200625)])
+                    .append(alphabet[(int) (value / 614125 % 85)])
+                    .append(alphabet[(int) (value / 7225 % 85)])
+                    .append(alphabet[(int) (value / 85 % 85)])
+                    .append(alphabet[(int) (value % 85)]);
+        }
+    }
+
+    private byte[] decodeZ85(CharSequence src) {
+        int len = src.length();
+        if (len % 5 != 0) {
+            throw new IllegalArgumentException("Illegal Z85 length: " + len);
+        }
+        byte[] out = new byte[len / 5 * 4];
+        int p = 0;
+        for (int i = 0; i < len; i += 5) {
+            long value = 0;
+            for (int j = 0; j < 5; j++) {
+                value = value * 85 + lookup(src.charAt(i + j));
+            }
+            if (value > 0xFFFFFFFFL) {
+                throw new IllegalArgumentException("Illegal Z85 block at: " + i);
+            }
+            out[p++] = (byte) (value >>> 24);
+            out[p++] = (byte) (value >>> 16);
+            out[p++] = (byte) (value >>> 8);
+            out[p++] = (byte) value;
+        }
+        return out;
+    }
+
+    private int lookup(char c) {
+        int v = c < 128 ? decodeTable[c] : -1;
+        if (v < 0) {
+            throw new IllegalArgumentException("Illegal " + name() + " character: " + c);
+        }
+        return v;
+    }
+}
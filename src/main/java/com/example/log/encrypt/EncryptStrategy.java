@@ -7,4 +7,29 @@ package com.example.log.encrypt;
 public interface EncryptStrategy {
     String encrypt(String value);
     String decrypt(String value);
+
+    /**
+     * 将 value[start, end) 的加密结果直接写入 out,默认实现回退到 {@link #encrypt(String)}
+     */
+    default void encrypt(CharSequence value, int start, int end, StringBuilder out) {
+        out.append(encrypt(value.subSequence(start, end).toString()));
+    }
+
+    /**
+     * 尝试解密,无法解密时返回null;默认捕获 {@link #decrypt(String)} 的异常,实现类可覆盖以避免异常开销
+     */
+    default String tryDecrypt(String value) {
+        try {
+            return decrypt(value);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 是否符合本策略的密文格式(只检查格式,不检查能否解密);不可逆或无法区分密文与明文的策略返回false
+     */
+    default boolean isCipherText(String value) {
+        return false;
+    }
 }
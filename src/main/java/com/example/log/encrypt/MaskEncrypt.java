@@ -0,0 +1,67 @@
+package com.example.log.encrypt;
+
+/**
+ * 部分掩码(不可逆),按码点计数,保证中文等代理对字符不会被截断
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class MaskEncrypt implements EncryptStrategy {
+    private final int keepPrefix;
+    private final int keepSuffix;
+    private final int maskCodePoint;
+    /**
+     * 固定掩码宽度,小于等于0时保持原长度
+     */
+    private final int fixedWidth;
+
+    public MaskEncrypt(int keepPrefix, int keepSuffix, int maskCodePoint, int fixedWidth) {
+        if (keepPrefix < 0 || keepSuffix < 0) {
+            throw new IllegalArgumentException("mask keep length must not be negative");
+        }
+        this.keepPrefix = keepPrefix;
+        this.keepSuffix = keepSuffix;
+        this.maskCodePoint = maskCodePoint;
+        this.fixedWidth = fixedWidth;
+    }
+
+    @Override
+    public String encrypt(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + Math.max(fixedWidth, 0));
+        encrypt(value, 0, value.length(), sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void encrypt(CharSequence value, int start, int end, StringBuilder out) {
+        int n = Character.codePointCount(value, start, end);
+        if (n == 0) {
+            return;
+        }
+        int head = keepPrefix;
+        int tail = keepSuffix;
+        // 保留长度不小于总长度时,至少掩码一个字符,优先收缩后缀
+        if (head + tail >= n) {
+            tail = Math.max(0, n - 1 - head);
+            head = Math.min(head, n - 1);
+        }
+        int headEnd = Character.offsetByCodePoints(value, start, head);
+        int tailStart = Character.offsetByCodePoints(value, end, -tail);
+        out.append(value, start, headEnd);
+        int masked = fixedWidth > 0 ? fixedWidth : n - head - tail;
+        for (int i = 0; i < masked; i++) {
+            out.appendCodePoint(maskCodePoint);
+        }
+        out.append(value, tailStart, end);
+    }
+
+    @Override
+    public String decrypt(String value) {
+        throw new UnsupportedOperationException("MASK is irreversible");
+    }
+
+    @Override
+    public String tryDecrypt(String value) {
+        return null;
+    }
+}
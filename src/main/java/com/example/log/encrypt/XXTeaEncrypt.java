@@ -1,25 +1,120 @@
 package com.example.log.encrypt;
 
+import com.example.log.util.Utf8Util;
 import com.example.log.util.XXTEAUtil;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * @author liuzhixin
  * @Description:
  */
 public class XXTeaEncrypt implements EncryptStrategy {
-    private final String key;
+    /**
+     * 数字压缩标记,UTF-8中不会出现0xFF,解密时据此区分
+     */
+    private static final byte PACKED_DIGITS = (byte) 0xFF;
+
+    /**
+     * 创建时生成一次密钥数组,避免每条日志重复处理密钥
+     */
+    private final int[] key;
+    private final CipherEncoding encoding;
+    private final boolean packDigits;
 
     public XXTeaEncrypt(String key) {
-        this.key = key;
+        this(key, CipherEncoding.BASE64, false);
+    }
+
+    public XXTeaEncrypt(String key, CipherEncoding encoding, boolean packDigits) {
+        this.key = XXTEAUtil.toKeyArray(key.getBytes(StandardCharsets.UTF_8));
+        this.encoding = encoding;
+        this.packDigits = packDigits;
     }
 
     @Override
     public String encrypt(String value) {
-        return XXTEAUtil.encryptToBase64String(value, key);
+        StringBuilder sb = new StringBuilder(24);
+        encrypt(value, 0, value.length(), sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void encrypt(CharSequence value, int start, int end, StringBuilder out) {
+        byte[] data = packDigits && isDigits(value, start, end)
+                ? pack(value, start, end) : Utf8Util.encode(value, start, end);
+        encoding.encode(XXTEAUtil.encrypt(data, key), out);
     }
 
     @Override
     public String decrypt(String value) {
-        return new String(XXTEAUtil.decryptBase64String(value, key));
+        byte[] data = XXTEAUtil.decrypt(encoding.decode(value), key);
+        if (data == null) {
+            throw new IllegalArgumentException("Illegal XXTEA cipher text: " + value);
+        }
+        return toText(data);
+    }
+
+    /**
+     * 先按编码检查长度和字符集,不符合时直接返回null,不抛出异常
+     */
+    @Override
+    public String tryDecrypt(String value) {
+        if (!isCipherText(value)) {
+            return null;
+        }
+        byte[] data = XXTEAUtil.decrypt(encoding.decode(value), key);
+        return data == null ? null : toText(data);
+    }
+
+    @Override
+    public boolean isCipherText(String value) {
+        int length = encoding.decodedLength(value);
+        // 密文至少包含一个数据字和长度字
+        return length >= 8 && (length & 3) == 0;
+    }
+
+    private static String toText(byte[] data) {
+        return data.length > 0 && data[0] == PACKED_DIGITS ? unpack(data) : new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isDigits(CharSequence value, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 标记字节 + BCD,每字节两位数字,奇数位时末尾补0xF
+     */
+    private static byte[] pack(CharSequence value, int start, int end) {
+        int digits = end - start;
+        byte[] out = new byte[1 + (digits + 1) / 2];
+        out[0] = PACKED_DIGITS;
+        for (int i = 0; i < digits; i += 2) {
+            int high = value.charAt(start + i) - '0';
+            int low = i + 1 < digits ? value.charAt(start + i + 1) - '0' : 0xF;
+            out[1 + i / 2] = (byte) (high << 4 | low);
+        }
+        return out;
+    }
+
+    private static String unpack(byte[] data) {
+        StringBuilder sb = new StringBuilder((data.length - 1) * 2);
+        for (int i = 1; i < data.length; i++) {
+            sb.append((char) ('0' + ((data[i] >> 4) & 0xF)));
+            int low = data[i] & 0xF;
+            if (low != 0xF) {
+                sb.append((char) ('0' + low));
+            }
+        }
+        return sb.toString();
     }
 }
@@ -13,6 +13,11 @@ public class Base64EncryptProvider implements EncryptStrategyProvider{
         return "BASE64";
     }
 
+    @Override
+    public boolean isKeyRequired() {
+        return false;
+    }
+
     @Override
     public EncryptStrategy createStrategy(String key) {
         return new Base64Encrypt();
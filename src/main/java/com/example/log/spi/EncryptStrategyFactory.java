@@ -4,6 +4,7 @@ import com.example.log.encrypt.EncryptStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
@@ -26,11 +27,20 @@ public class EncryptStrategyFactory {
     }
 
     public static EncryptStrategy createStrategy(String type, String key){
+        return createStrategy(type, key, Collections.emptyMap());
+    }
+
+    public static EncryptStrategy createStrategy(String type, String key, Map<String, String> options){
         EncryptStrategyProvider provider = providers.get(type);
         if(provider == null){
             throw new IllegalArgumentException("not found EncryptStrategyProvider: " + type);
         }
-        return provider.createStrategy(key);
+        return provider.createStrategy(key, options);
+    }
+
+    public static boolean isKeyRequired(String type){
+        EncryptStrategyProvider provider = providers.get(type);
+        return provider == null || provider.isKeyRequired();
     }
 
     public static  boolean isSupport(String type){
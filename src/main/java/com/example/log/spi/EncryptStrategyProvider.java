@@ -2,6 +2,8 @@ package com.example.log.spi;
 
 import com.example.log.encrypt.EncryptStrategy;
 
+import java.util.Map;
+
 /**
  * @author liuzhixin
  * @Description:
@@ -16,4 +18,18 @@ public interface EncryptStrategyProvider {
      * 创建加密策略实例
      */
     EncryptStrategy createStrategy(String key);
+
+    /**
+     * 是否使用密钥,不使用密钥的策略不按租户区分
+     */
+    default boolean isKeyRequired() {
+        return true;
+    }
+
+    /**
+     * 创建加密策略实例,options 为字段级配置(已去掉"字段名."前缀),默认忽略
+     */
+    default EncryptStrategy createStrategy(String key, Map<String, String> options) {
+        return createStrategy(key);
+    }
 }
@@ -0,0 +1,29 @@
+package com.example.log.spi;
+
+import com.example.log.tenant.KeyStoreTenantKeySource;
+import com.example.log.tenant.TenantKeySource;
+
+import java.util.Map;
+
+/**
+ * 配置项: keystore.path 路径, keystore.type 类型(默认PKCS12), keystore.password 口令
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class KeyStoreTenantKeySourceProvider implements TenantKeySourceProvider{
+    @Override
+    public String getType() {
+        return "KEYSTORE";
+    }
+
+    @Override
+    public TenantKeySource createKeySource(Map<String, String> options) {
+        String path = options.get("keystore.path");
+        if (path == null) {
+            throw new IllegalArgumentException("encrypt.tenant.keystore.path is required");
+        }
+        return new KeyStoreTenantKeySource(path, options.getOrDefault("keystore.type", "PKCS12"),
+                options.get("keystore.password"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.log.spi;
+
+import com.example.log.encrypt.EncryptStrategy;
+import com.example.log.encrypt.MaskEncrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 配置项(均可选):
+ * mask.prefix 保留前N个字符,默认0
+ * mask.suffix 保留后M个字符,默认0
+ * mask.char   掩码字符,默认*
+ * mask.width  固定掩码宽度,默认0即保持原长度
+ * 配置值不是非负整数时告警并使用默认值,不会因配置错误导致字段不掩码
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class MaskEncryptProvider implements EncryptStrategyProvider{
+    private static final Logger logger = LoggerFactory.getLogger(MaskEncryptProvider.class);
+
+    @Override
+    public String getType() {
+        return "MASK";
+    }
+
+    @Override
+    public boolean isKeyRequired() {
+        return false;
+    }
+
+    @Override
+    public EncryptStrategy createStrategy(String key) {
+        return createStrategy(key, Collections.emptyMap());
+    }
+
+    @Override
+    public EncryptStrategy createStrategy(String key, Map<String, String> options) {
+        int prefix = parseCount(options, "mask.prefix");
+        int suffix = parseCount(options, "mask.suffix");
+        String maskChar = options.getOrDefault("mask.char", "*");
+        int width = parseCount(options, "mask.width");
+        int codePoint = maskChar.isEmpty() ? '*' : maskChar.codePointAt(0);
+        return new MaskEncrypt(prefix, suffix, codePoint, width);
+    }
+
+    private static int parseCount(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            int count = Integer.parseInt(value.trim());
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // 按默认值处理
+        }
+        logger.warn("Invalid {}: {}, use default: 0", name, value);
+        return 0;
+    }
+}
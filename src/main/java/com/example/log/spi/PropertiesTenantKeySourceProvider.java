@@ -0,0 +1,24 @@
+package com.example.log.spi;
+
+import com.example.log.tenant.PropertiesTenantKeySource;
+import com.example.log.tenant.TenantKeySource;
+
+import java.util.Map;
+
+/**
+ * 配置项: keyFile 密钥文件路径,默认 field-encrypt-tenant.properties
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class PropertiesTenantKeySourceProvider implements TenantKeySourceProvider{
+    @Override
+    public String getType() {
+        return "PROPERTIES";
+    }
+
+    @Override
+    public TenantKeySource createKeySource(Map<String, String> options) {
+        return new PropertiesTenantKeySource(options.getOrDefault("keyFile", "field-encrypt-tenant.properties"));
+    }
+}
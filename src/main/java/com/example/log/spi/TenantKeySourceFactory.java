@@ -0,0 +1,52 @@
+package com.example.log.spi;
+
+import com.example.log.config.FieldEncryptConfig;
+import com.example.log.tenant.TenantKeySource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+public class TenantKeySourceFactory {
+    private static final Logger logger = LoggerFactory.getLogger(TenantKeySourceFactory.class);
+    private static final Map<String, TenantKeySourceProvider> providers = new HashMap<>();
+
+    static {
+        //加载所有实现
+        ServiceLoader<TenantKeySourceProvider> loader = ServiceLoader.load(TenantKeySourceProvider.class);
+        for(TenantKeySourceProvider provider : loader){
+            providers.put(provider.getType(), provider);
+            logger.info("load TenantKeySourceProvider:{}", provider.getType());
+        }
+    }
+
+    public static TenantKeySource createKeySource(String type, Map<String, String> options){
+        TenantKeySourceProvider provider = providers.get(type);
+        if(provider == null){
+            throw new IllegalArgumentException("not found TenantKeySourceProvider: " + type);
+        }
+        return provider.createKeySource(options);
+    }
+
+    /**
+     * 开启多租户时创建密钥来源;创建失败时返回不含任何密钥的来源,所有租户按 encrypt.tenant.onMissingKey 处理
+     */
+    public static TenantKeySource createKeySource(FieldEncryptConfig config) {
+        if (config.getTenantMdcKey() == null) {
+            return null;
+        }
+        try {
+            return createKeySource(config.getTenantKeySource(), config.getTenantOptions());
+        } catch (Exception e) {
+            logger.error("Failed to create tenant key source: {}, all tenants use onMissingKey: {}, error: {}",
+                    config.getTenantKeySource(), config.getTenantOnMissingKey(), e.getMessage(), e);
+            return (tenant, fieldName) -> null;
+        }
+    }
+}
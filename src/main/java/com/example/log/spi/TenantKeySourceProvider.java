@@ -0,0 +1,21 @@
+package com.example.log.spi;
+
+import com.example.log.tenant.TenantKeySource;
+
+import java.util.Map;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+public interface TenantKeySourceProvider {
+    /**
+     * 获取密钥来源类型名称
+     */
+    String getType();
+
+    /**
+     * 创建密钥来源实例,options 为 encrypt.tenant. 前缀下的配置(已去掉前缀)
+     */
+    TenantKeySource createKeySource(Map<String, String> options);
+}
@@ -1,13 +1,27 @@
 package com.example.log.spi;
 
+import com.example.log.encrypt.CipherEncoding;
 import com.example.log.encrypt.EncryptStrategy;
 import com.example.log.encrypt.XXTeaEncrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
 
 /**
+ * 配置项(均可选):
+ * encrypt.encoding   密文编码 BASE64(默认)/BASE64URL/Z85
+ * encrypt.packDigits 纯数字明文先压缩为BCD再加密,默认false
+ * <p>
+ * 编码名称无效时告警并使用BASE64;Z85 字符集包含默认匹配规则的结束符 '}' ')' ',',
+ * 未配置 {field}.patterns 时密文会被截断、无法解密和轮换,此时告警并改用BASE64URL
+ *
  * @author liuzhixin
  * @Description:
  */
 public class XXTeaEncryptProvider implements EncryptStrategyProvider{
+    private static final Logger logger = LoggerFactory.getLogger(XXTeaEncryptProvider.class);
+
     @Override
     public String getType() {
         return "XXTEA";
@@ -17,4 +31,27 @@ public class XXTeaEncryptProvider implements EncryptStrategyProvider{
     public EncryptStrategy createStrategy(String key) {
         return new XXTeaEncrypt(key);
     }
+
+    @Override
+    public EncryptStrategy createStrategy(String key, Map<String, String> options) {
+        return new XXTeaEncrypt(key, parseEncoding(options),
+                Boolean.parseBoolean(options.getOrDefault("encrypt.packDigits", "false").trim()));
+    }
+
+    private static CipherEncoding parseEncoding(Map<String, String> options) {
+        String name = options.get("encrypt.encoding");
+        CipherEncoding encoding;
+        try {
+            encoding = CipherEncoding.of(name);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid encrypt.encoding: {}, use default: {}", name, CipherEncoding.BASE64);
+            return CipherEncoding.BASE64;
+        }
+        if (encoding == CipherEncoding.Z85 && !options.containsKey("patterns")) {
+            logger.warn("encrypt.encoding Z85 conflicts with the default patterns, use {} instead;"
+                    + " configure <field>.patterns that accept Z85 characters to use Z85", CipherEncoding.BASE64URL);
+            return CipherEncoding.BASE64URL;
+        }
+        return encoding;
+    }
 }
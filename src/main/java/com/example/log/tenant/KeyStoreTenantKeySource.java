@@ -0,0 +1,60 @@
+package com.example.log.tenant;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 从KeyStore读取租户密钥,别名优先查找 {tenant}.{field},其次 {tenant}。
+ * PKCS12/JKS 的别名不区分大小写,租户和字段名同样不区分大小写
+ * <p>
+ * 密钥需以口令形式导入,如: keytool -importpass -storetype PKCS12 -alias tenantA.mobile -keystore tenant-keys.p12
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class KeyStoreTenantKeySource implements TenantKeySource {
+    /**
+     * 别名(小写) -> 密钥; PKCS12 口令条目每次读取都会执行PBKDF2,因此创建时一次性读出
+     */
+    private final Map<String, String> keys = new HashMap<>();
+
+    public KeyStoreTenantKeySource(String location, String type, String password) {
+        char[] chars = password == null ? new char[0] : password.toCharArray();
+        try (InputStream in = open(location)) {
+            KeyStore keyStore = KeyStore.getInstance(type == null ? KeyStore.getDefaultType() : type);
+            keyStore.load(in, chars);
+            for (String alias : Collections.list(keyStore.aliases())) {
+                if (keyStore.isKeyEntry(alias)) {
+                    Key key = keyStore.getKey(alias, chars);
+                    if (key != null && key.getEncoded() != null) {
+                        keys.put(alias.toLowerCase(Locale.ROOT), new String(key.getEncoded(), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to load tenant keystore: " + location, e);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    @Override
+    public String getKey(String tenant, String fieldName) {
+        String name = tenant.toLowerCase(Locale.ROOT);
+        String key = keys.get(name + "." + fieldName.toLowerCase(Locale.ROOT));
+        return key != null ? key : keys.get(name);
+    }
+
+    private static InputStream open(String location) throws Exception {
+        InputStream in = KeyStoreTenantKeySource.class.getClassLoader().getResourceAsStream(location);
+        return in != null ? in : new FileInputStream(location);
+    }
+}
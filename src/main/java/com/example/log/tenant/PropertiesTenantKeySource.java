@@ -0,0 +1,61 @@
+package com.example.log.tenant;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 从properties文件读取租户密钥,优先查找 {tenant}.{field},其次 {tenant}
+ * <p>
+ * 文件先从classpath查找,找不到时按文件系统路径读取。租户和字段名不区分大小写,与 KeyStore 别名规则一致,
+ * 仅大小写不同的重复配置视为错误
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class PropertiesTenantKeySource implements TenantKeySource {
+    /**
+     * 名称(小写) -> 密钥
+     */
+    private final Map<String, String> keys = new HashMap<>();
+
+    public PropertiesTenantKeySource(Properties props) {
+        for (String name : props.stringPropertyNames()) {
+            if (keys.put(name.toLowerCase(Locale.ROOT), props.getProperty(name)) != null) {
+                throw new IllegalArgumentException("Duplicate tenant key ignoring case: " + name);
+            }
+        }
+    }
+
+    public PropertiesTenantKeySource(String location) {
+        this(load(location));
+    }
+
+    @Override
+    public String getKey(String tenant, String fieldName) {
+        String name = tenant.toLowerCase(Locale.ROOT);
+        String key = keys.get(name + "." + fieldName.toLowerCase(Locale.ROOT));
+        return key != null ? key : keys.get(name);
+    }
+
+    private static Properties load(String location) {
+        Properties props = new Properties();
+        try (InputStream in = open(location)) {
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to load tenant keys: " + location, e);
+        }
+        return props;
+    }
+
+    private static InputStream open(String location) throws IOException {
+        InputStream in = PropertiesTenantKeySource.class.getClassLoader().getResourceAsStream(location);
+        return in != null ? in : new FileInputStream(location);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.log.tenant;
+
+/**
+ * 租户密钥来源
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public interface TenantKeySource {
+    /**
+     * 获取租户下指定字段的密钥,未配置时返回null
+     */
+    String getKey(String tenant, String fieldName);
+}
@@ -0,0 +1,154 @@
+package com.example.log.tenant;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.log.config.FieldEncryptConfig;
+import com.example.log.encrypt.EncryptStrategy;
+import com.example.log.encrypt.MaskEncrypt;
+import com.example.log.spi.EncryptStrategyFactory;
+
+/**
+ * 单个字段按租户缓存的加密策略
+ * <p>
+ * 命中时只是一次 ConcurrentHashMap 查找,访问时间按 {@link #TOUCH_INTERVAL_NANOS} 粗粒度更新,不分配对象;未命中时通过 TenantKeySource 取密钥创建策略,
+ * 超过容量时淘汰最久未使用的租户。未开启多租户、策略不使用密钥或事件中没有租户时使用字段默认策略;
+ * 租户未配置密钥(含密钥来源加载失败)时按 onMissingKey 处理:
+ * FAIL 输出固定占位符 {@value #MISSING_KEY},MASK 整体掩码,DEFAULT 使用字段默认密钥
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class TenantStrategyCache {
+    private static final Logger logger = LoggerFactory.getLogger(TenantStrategyCache.class);
+    public static final String MISSING_KEY = "[NO_TENANT_KEY]";
+    /**
+     * 访问时间的更新间隔,同一租户的高频日志不必每条都写同一缓存行;淘汰顺序精确到该粒度
+     */
+    private static final long TOUCH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final FieldEncryptConfig.EncryptField field;
+    private final EncryptStrategy defaultStrategy;
+    private final TenantKeySource keySource;
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> strategies;
+    private final String onMissingKey;
+    private final EncryptStrategy missingKeyStrategy;
+    /**
+     * 已告警的租户(最多 maxSize * 4 个),淘汰后重新加载时不再重复告警
+     */
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    public TenantStrategyCache(FieldEncryptConfig.EncryptField field, TenantKeySource keySource, int maxSize,
+                               String onMissingKey) {
+        this.field = field;
+        this.defaultStrategy = EncryptStrategyFactory.createStrategy(field.getEncryptType(),
+                field.getEncryptKey(), field.getOptions());
+        // 不使用密钥的策略(如MASK、BASE64)与租户无关
+        this.keySource = EncryptStrategyFactory.isKeyRequired(field.getEncryptType()) ? keySource : null;
+        this.maxSize = Math.max(1, maxSize);
+        this.strategies = new ConcurrentHashMap<>(Math.min(this.maxSize, 64));
+        this.onMissingKey = onMissingKey == null ? "FAIL" : onMissingKey;
+        this.missingKeyStrategy = createMissingKeyStrategy(this.onMissingKey, defaultStrategy);
+    }
+
+    private static EncryptStrategy createMissingKeyStrategy(String onMissingKey, EncryptStrategy defaultStrategy) {
+        switch (onMissingKey) {
+            case "DEFAULT":
+                return defaultStrategy;
+            case "MASK":
+                return new MaskEncrypt(0, 0, '*', 0);
+            default:
+                return new MissingKeyEncrypt();
+        }
+    }
+
+    public EncryptStrategy getDefault() {
+        return defaultStrategy;
+    }
+
+    public EncryptStrategy get(String tenant) {
+        if (keySource == null || tenant == null || tenant.isEmpty()) {
+            return defaultStrategy;
+        }
+        Entry entry = strategies.get(tenant);
+        if (entry == null) {
+            return load(tenant);
+        }
+        long now = System.nanoTime();
+        if (now - entry.lastUsed > TOUCH_INTERVAL_NANOS) {
+            entry.lastUsed = now;
+        }
+        return entry.strategy;
+    }
+
+    private EncryptStrategy load(String tenant) {
+        EncryptStrategy strategy;
+        String key = keySource.getKey(tenant, field.getFieldName());
+        if (key == null) {
+            if (reported.size() < maxSize * 4 && reported.add(tenant)) {
+                logger.warn("No key configured for tenant: {}, field: {}, onMissingKey: {}",
+                        tenant, field.getFieldName(), onMissingKey);
+            }
+            strategy = missingKeyStrategy;
+        } else {
+            strategy = EncryptStrategyFactory.createStrategy(field.getEncryptType(), key, field.getOptions());
+        }
+        while (strategies.size() >= maxSize) {
+            evictLeastRecentlyUsed();
+        }
+        Entry previous = strategies.putIfAbsent(tenant, new Entry(strategy));
+        return previous != null ? previous.strategy : strategy;
+    }
+
+    /**
+     * 仅在未命中且缓存已满时执行,遍历找出最久未使用的租户
+     */
+    private void evictLeastRecentlyUsed() {
+        String eldest = null;
+        long eldestUsed = Long.MAX_VALUE;
+        for (Map.Entry<String, Entry> e : strategies.entrySet()) {
+            if (eldest == null || e.getValue().lastUsed - eldestUsed < 0) {
+                eldest = e.getKey();
+                eldestUsed = e.getValue().lastUsed;
+            }
+        }
+        if (eldest != null) {
+            strategies.remove(eldest);
+        }
+    }
+
+    /**
+     * 租户无密钥且 onMissingKey=FAIL 时使用,不输出原值也不使用共享密钥
+     */
+    private static final class MissingKeyEncrypt implements EncryptStrategy {
+        @Override
+        public String encrypt(String value) {
+            return MISSING_KEY;
+        }
+
+        @Override
+        public String decrypt(String value) {
+            throw new UnsupportedOperationException("no tenant key");
+        }
+
+        @Override
+        public String tryDecrypt(String value) {
+            return null;
+        }
+    }
+
+    private static final class Entry {
+        private final EncryptStrategy strategy;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Entry(EncryptStrategy strategy) {
+            this.strategy = strategy;
+        }
+    }
+}
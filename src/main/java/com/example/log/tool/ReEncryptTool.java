@@ -0,0 +1,455 @@
+package com.example.log.tool;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.example.log.config.FieldEncryptConfig;
+import com.example.log.convertor.FieldEncryptConverter;
+import com.example.log.encrypt.EncryptStrategy;
+import com.example.log.spi.EncryptStrategyFactory;
+import com.example.log.util.LruCache;
+
+/**
+ * 密钥轮换后将归档日志中的密文重新加密
+ * <p>
+ * 按旧配置的匹配规则查找字段密文,用旧策略解密、新策略加密;文件按行分块并行处理,按原顺序输出,
+ * .gz 文件按gzip读写。相同密文只转换一次。完成后校验: 存在符合旧密文格式却无法用旧密钥解密的值、
+ * 或字段有匹配但没有任何转换时视为失败;并抽样校验新旧密文解密结果一致、输出文件中不再有旧密钥的密文。
+ * 校验失败时退出码为1
+ * <p>
+ * 用法: java -cp logback-field-encryptor.jar:logback-classic.jar:logback-core.jar:slf4j-api.jar
+ * com.example.log.tool.ReEncryptTool --old old.properties --new new.properties --out outDir
+ * [--threads N] [--cache N] [--charset UTF-8] file...
+ * <p>
+ * 仅使用字段自身的 encrypt.key,不处理多租户密钥;输出统一使用\n换行。日志按 --charset 读写(默认UTF-8),
+ * 遇到不符合该编码的字节时报错,不做替换
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class ReEncryptTool {
+    private static final int CHUNK_LINES = 2048;
+    private static final int SAMPLE_SIZE = 100;
+    private static final String PROBE = "0123456789";
+    /**
+     * 抽样校验输出文件时每个文件最多读取的行数
+     */
+    private static final int VERIFY_LINES = 100000;
+
+    private final Map<String, List<Pattern>> fieldPatterns = new LinkedHashMap<>();
+    private final Map<String, TranslateStrategy> translators = new LinkedHashMap<>();
+    private final List<Path> written = new ArrayList<>();
+    private final int threads;
+    private final Charset charset;
+
+    public ReEncryptTool(FieldEncryptConfig oldConfig, FieldEncryptConfig newConfig, int threads, int cacheSize) {
+        this(oldConfig, newConfig, threads, cacheSize, StandardCharsets.UTF_8);
+    }
+
+    public ReEncryptTool(FieldEncryptConfig oldConfig, FieldEncryptConfig newConfig, int threads, int cacheSize,
+                         Charset charset) {
+        this.threads = Math.max(1, threads);
+        this.charset = charset;
+        oldConfig.getEncryptFields().forEach((fieldName, oldField) -> {
+            FieldEncryptConfig.EncryptField newField = newConfig.getEncryptFields().get(fieldName);
+            if (newField == null) {
+                System.out.println("skip field not in new config: " + fieldName);
+                return;
+            }
+            EncryptStrategy oldStrategy = EncryptStrategyFactory.createStrategy(oldField.getEncryptType(),
+                    oldField.getEncryptKey(), oldField.getOptions());
+            // 不可逆的策略(如MASK)无法转换
+            if (!PROBE.equals(oldStrategy.tryDecrypt(oldStrategy.encrypt(PROBE)))) {
+                System.out.println("skip irreversible field: " + fieldName);
+                return;
+            }
+            fieldPatterns.put(fieldName, oldField.getPatterns().stream()
+                    .map(pattern -> Pattern.compile(String.format(pattern, fieldName)))
+                    .collect(Collectors.toList()));
+            translators.put(fieldName, new TranslateStrategy(oldStrategy,
+                    EncryptStrategyFactory.createStrategy(newField.getEncryptType(), newField.getEncryptKey(), newField.getOptions()),
+                    cacheSize));
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i].substring(2), args[++i]);
+            } else {
+                files.add(Paths.get(args[i]));
+            }
+        }
+        if (!options.containsKey("old") || !options.containsKey("new") || !options.containsKey("out") || files.isEmpty()) {
+            System.err.println("Usage: ReEncryptTool --old old.properties --new new.properties --out outDir"
+                    + " [--threads N] [--cache N] [--charset UTF-8] file...");
+            System.exit(2);
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int cacheSize = Integer.parseInt(options.getOrDefault("cache", "100000"));
+        Charset charset = Charset.forName(options.getOrDefault("charset", "UTF-8"));
+        ReEncryptTool tool = new ReEncryptTool(loadConfig(Paths.get(options.get("old"))),
+                loadConfig(Paths.get(options.get("new"))), threads, cacheSize, charset);
+
+        Path outDir = Paths.get(options.get("out"));
+        Files.createDirectories(outDir);
+        tool.run(files, outDir);
+        System.exit(tool.verify() == 0 ? 0 : 1);
+    }
+
+    public void run(List<Path> files, Path outDir) throws IOException, InterruptedException, ExecutionException {
+        // 输出文件按原文件名放在 outDir 下,不同目录的同名文件会互相覆盖,提前检查
+        Map<Path, Path> outputs = new LinkedHashMap<>();
+        for (Path in : files) {
+            Path previous = outputs.put(outDir.resolve(in.getFileName()), in);
+            if (previous != null) {
+                throw new IllegalArgumentException("duplicate output file name: " + in.getFileName()
+                        + " (" + previous + ", " + in + ")");
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long totalBytes = 0;
+            long begin = System.nanoTime();
+            for (Map.Entry<Path, Path> entry : outputs.entrySet()) {
+                Path in = entry.getValue();
+                Path out = entry.getKey();
+                if (Files.exists(out) && Files.isSameFile(in, out)) {
+                    throw new IllegalArgumentException("output file is the input file: " + in);
+                }
+                long start = System.nanoTime();
+                long bytes = reEncrypt(in, out, executor);
+                written.add(out);
+                totalBytes += bytes;
+                report(in.toString(), bytes, System.nanoTime() - start);
+            }
+            report("total", totalBytes, System.nanoTime() - begin);
+            translators.forEach((fieldName, translator) -> System.out.printf(
+                    "field %s: %d matched, %d tokens translated, %d re-encrypted (cache miss), "
+                            + "%d undecryptable (old key), %d kept (not cipher text)%n", fieldName,
+                    translator.matched.sum(), translator.translated.sum(), translator.distinct.sum(),
+                    translator.undecryptable.sum(), translator.kept.sum()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 校验转换结果,返回失败数:
+     * 符合旧密文格式却无法用旧密钥解密的值(通常是旧密钥配置错误)、有匹配但没有任何转换的字段、
+     * 抽样中新旧密文解密结果不一致的条目、输出文件中仍可用旧密钥解密且新密钥无法解密的值
+     */
+    public int verify() throws IOException {
+        int failures = 0;
+        for (Map.Entry<String, TranslateStrategy> entry : translators.entrySet()) {
+            TranslateStrategy translator = entry.getValue();
+            long undecryptable = translator.undecryptable.sum();
+            if (undecryptable > 0) {
+                failures++;
+                System.err.printf("verify failed, field %s: %d tokens look like cipher text but cannot be decrypted"
+                        + " with the old key%n", entry.getKey(), undecryptable);
+            }
+            if (translator.matched.sum() > 0 && translator.translated.sum() == 0) {
+                failures++;
+                System.err.printf("verify failed, field %s: %d matched but none translated, check the old key%n",
+                        entry.getKey(), translator.matched.sum());
+            }
+        }
+        int checked = 0;
+        for (Map.Entry<String, TranslateStrategy> entry : translators.entrySet()) {
+            TranslateStrategy translator = entry.getValue();
+            for (Map.Entry<String, String> token : translator.cache.entries(SAMPLE_SIZE)) {
+                checked++;
+                try {
+                    if (!translator.newStrategy.decrypt(token.getValue()).equals(translator.oldStrategy.decrypt(token.getKey()))) {
+                        failures++;
+                        System.err.printf("verify failed, field %s: %s -> %s%n", entry.getKey(), token.getKey(), token.getValue());
+                    }
+                } catch (Exception e) {
+                    failures++;
+                    System.err.printf("verify failed, field %s: %s -> %s, error: %s%n",
+                            entry.getKey(), token.getKey(), token.getValue(), e.getMessage());
+                }
+            }
+        }
+        for (Path out : written) {
+            int[] result = verifyOutput(out);
+            checked += result[0];
+            failures += result[1];
+        }
+        System.out.printf("verify: %d sampled, %d failed%n", checked, failures);
+        return failures;
+    }
+
+    /**
+     * 从输出文件开头抽样,每个字段最多 SAMPLE_SIZE 个值,返回 {抽样数, 失败数}
+     */
+    private int[] verifyOutput(Path out) throws IOException {
+        int[] result = new int[2];
+        Map<String, int[]> sampled = new LinkedHashMap<>();
+        translators.keySet().forEach(fieldName -> sampled.put(fieldName, new int[1]));
+        try (BufferedReader reader = newReader(out)) {
+            String line;
+            int lines = 0;
+            while ((line = reader.readLine()) != null && lines++ < VERIFY_LINES && !sampled.isEmpty()) {
+                for (Map.Entry<String, List<Pattern>> entry : fieldPatterns.entrySet()) {
+                    String fieldName = entry.getKey();
+                    int[] count = sampled.get(fieldName);
+                    if (count == null || !line.contains(fieldName)) {
+                        continue;
+                    }
+                    TranslateStrategy translator = translators.get(fieldName);
+                    for (Pattern pattern : entry.getValue()) {
+                        FieldEncryptConverter.rewriteField(line, pattern, (value, start, end, sb) -> {
+                            if (count[0] >= SAMPLE_SIZE || start == end) {
+                                return false;
+                            }
+                            count[0]++;
+                            result[0]++;
+                            String token = value.subSequence(start, end).toString();
+                            if (translator.oldStrategy.tryDecrypt(token) != null && translator.newStrategy.tryDecrypt(token) == null) {
+                                result[1]++;
+                                System.err.printf("verify failed, %s field %s: still encrypted with the old key: %s%n",
+                                        out, fieldName, token);
+                            }
+                            return false;
+                        });
+                    }
+                    if (count[0] >= SAMPLE_SIZE) {
+                        sampled.remove(fieldName);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private long reEncrypt(Path in, Path out, ExecutorService executor)
+            throws IOException, InterruptedException, ExecutionException {
+        boolean gzip = in.getFileName().toString().endsWith(".gz");
+        boolean completed = false;
+        try (InputStream raw = Files.newInputStream(in);
+             // 统计解压后的字节数
+             CountingInputStream input = new CountingInputStream(gzip ? new GZIPInputStream(raw, 1 << 16) : raw);
+             OutputStream file = Files.newOutputStream(out);
+             OutputStream output = gzip ? new GZIPOutputStream(file, 1 << 16) : file;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, newDecoder()), 1 << 16);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(output, newEncoder()), 1 << 16)) {
+            // 已提交的分块按读入顺序排队,队列满时先写出最早的分块
+            Deque<Future<List<String>>> pending = new ArrayDeque<>();
+            List<String> chunk = new ArrayList<>(CHUNK_LINES);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                if (chunk.size() == CHUNK_LINES) {
+                    pending.add(submit(executor, chunk));
+                    chunk = new ArrayList<>(CHUNK_LINES);
+                    if (pending.size() >= threads * 2) {
+                        write(writer, pending.poll().get());
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pending.add(submit(executor, chunk));
+            }
+            while (!pending.isEmpty()) {
+                write(writer, pending.poll().get());
+            }
+            completed = true;
+            return input.count;
+        } finally {
+            // 失败时删除不完整的输出文件
+            if (!completed) {
+                Files.deleteIfExists(out);
+            }
+        }
+    }
+
+    private Future<List<String>> submit(ExecutorService executor, List<String> chunk) {
+        return executor.submit(() -> {
+            List<String> result = new ArrayList<>(chunk.size());
+            for (String line : chunk) {
+                result.add(translateLine(line));
+            }
+            return result;
+        });
+    }
+
+    private String translateLine(String line) {
+        for (Map.Entry<String, List<Pattern>> entry : fieldPatterns.entrySet()) {
+            if (line.contains(entry.getKey())) {
+                TranslateStrategy translator = translators.get(entry.getKey());
+                for (Pattern pattern : entry.getValue()) {
+                    line = FieldEncryptConverter.rewriteField(line, pattern, translator);
+                }
+            }
+        }
+        return line;
+    }
+
+    private static void write(Writer writer, List<String> lines) throws IOException {
+        for (String line : lines) {
+            writer.write(line);
+            writer.write('\n');
+        }
+    }
+
+    private static void report(String name, long bytes, long nanos) {
+        double mb = bytes / (1024.0 * 1024.0);
+        double seconds = Math.max(nanos, 1) / 1e9;
+        System.out.printf("%s: %.1f MB in %.2f s, %.1f MB/s%n", name, mb, seconds, mb / seconds);
+    }
+
+    /**
+     * 严格按 charset 解码,避免非该编码的字节被静默替换为U+FFFD后写回
+     */
+    private CharsetDecoder newDecoder() {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    private CharsetEncoder newEncoder() {
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    private BufferedReader newReader(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        if (path.getFileName().toString().endsWith(".gz")) {
+            try {
+                in = new GZIPInputStream(in, 1 << 16);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+        return new BufferedReader(new InputStreamReader(in, newDecoder()), 1 << 16);
+    }
+
+    private static FieldEncryptConfig loadConfig(Path path) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        return FieldEncryptConfig.loadFromProperties(props);
+    }
+
+    /**
+     * 旧密文 -> 新密文,结果按密文LRU缓存;无法解密的内容整个匹配原样保留,不缓存。
+     * 符合旧密文格式但解密失败的计入 undecryptable,其余(空值、明文、掩码等)计入 kept
+     */
+    private static class TranslateStrategy implements FieldEncryptConverter.ValueRewriter {
+        private final EncryptStrategy oldStrategy;
+        private final EncryptStrategy newStrategy;
+        private final LruCache<String, String> cache;
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder translated = new LongAdder();
+        private final LongAdder distinct = new LongAdder();
+        private final LongAdder undecryptable = new LongAdder();
+        private final LongAdder kept = new LongAdder();
+
+        TranslateStrategy(EncryptStrategy oldStrategy, EncryptStrategy newStrategy, int cacheSize) {
+            this.oldStrategy = oldStrategy;
+            this.newStrategy = newStrategy;
+            this.cache = new LruCache<>(Math.max(1, cacheSize), 16);
+        }
+
+        @Override
+        public boolean rewrite(CharSequence value, int start, int end, StringBuilder out) {
+            matched.increment();
+            if (start == end) {
+                kept.increment();
+                return false;
+            }
+            String token = value.subSequence(start, end).toString();
+            String result = cache.get(token);
+            if (result == null) {
+                result = translate(token);
+                if (result == null) {
+                    if (oldStrategy.isCipherText(token)) {
+                        undecryptable.increment();
+                    } else {
+                        kept.increment();
+                    }
+                    return false;
+                }
+                cache.put(token, result);
+            }
+            translated.increment();
+            out.append(result);
+            return true;
+        }
+
+        private String translate(String token) {
+            String plain = oldStrategy.tryDecrypt(token);
+            if (plain == null) {
+                return null;
+            }
+            distinct.increment();
+            return newStrategy.encrypt(plain);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
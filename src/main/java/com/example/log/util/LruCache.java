@@ -0,0 +1,74 @@
+package com.example.log.util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分段LRU缓存,每段为按访问顺序排列的 LinkedHashMap,读写时只锁对应分段
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, V>[] shards;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LruCache(int maxSize, int shardCount) {
+        int perShard = Math.max(1, (maxSize + shardCount - 1) / shardCount);
+        shards = new LinkedHashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > perShard;
+                }
+            };
+        }
+    }
+
+    public V get(K key) {
+        LinkedHashMap<K, V> shard = shard(key);
+        synchronized (shard) {
+            return shard.get(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        LinkedHashMap<K, V> shard = shard(key);
+        synchronized (shard) {
+            shard.put(key, value);
+        }
+    }
+
+    /**
+     * 最多返回 limit 个条目的快照,从各分段中均匀选取
+     */
+    public List<Map.Entry<K, V>> entries(int limit) {
+        List<Map.Entry<K, V>> result = new ArrayList<>();
+        int perShard = Math.max(1, (limit + shards.length - 1) / shards.length);
+        for (LinkedHashMap<K, V> shard : shards) {
+            synchronized (shard) {
+                int taken = 0;
+                for (Map.Entry<K, V> entry : shard.entrySet()) {
+                    if (result.size() >= limit) {
+                        return result;
+                    }
+                    if (taken++ >= perShard) {
+                        break;
+                    }
+                    result.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                }
+            }
+        }
+        return result;
+    }
+
+    private LinkedHashMap<K, V> shard(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return shards[(h & 0x7FFFFFFF) % shards.length];
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.log.util;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+public final class Utf8Util {
+
+    private Utf8Util() {
+    }
+
+    /**
+     * 将 cs[start, end) 直接编码为UTF-8字节,不生成中间String
+     */
+    public static byte[] encode(CharSequence cs, int start, int end) {
+        int size = 0;
+        for (int i = start; i < end; i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80) {
+                size++;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                size++;
+            } else {
+                size += 3;
+            }
+        }
+        byte[] out = new byte[size];
+        int p = 0;
+        for (int i = start; i < end; i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80) {
+                out[p++] = (byte) c;
+            } else if (c < 0x800) {
+                out[p++] = (byte) (0xC0 | (c >> 6));
+                out[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, cs.charAt(++i));
+                out[p++] = (byte) (0xF0 | (cp >> 18));
+                out[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                out[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                out[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 孤立代理字符,与 String.getBytes 一致替换为'?'
+                out[p++] = '?';
+            } else {
+                out[p++] = (byte) (0xE0 | (c >> 12));
+                out[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return out;
+    }
+}
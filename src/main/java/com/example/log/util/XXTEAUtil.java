@@ -72,6 +72,21 @@ public final class XXTEAUtil {
         return bytes == null ? null : Base64.getEncoder().encodeToString(bytes);
     }
 
+    /**
+     * 预先生成密钥数组,供同一密钥反复加解密时复用
+     */
+    public static final int[] toKeyArray(byte[] key) {
+        return toIntArray(fixKey(key), false);
+    }
+
+    public static final byte[] encrypt(byte[] data, int[] key) {
+        return data.length == 0 ? data : toByteArray(encrypt(toIntArray(data, true), key), false);
+    }
+
+    public static final byte[] decrypt(byte[] data, int[] key) {
+        return data.length == 0 ? data : toByteArray(decrypt(toIntArray(data, false), key), true);
+    }
+
     public static final byte[] decrypt(byte[] data, byte[] key) {
         return data.length == 0 ? data : toByteArray(decrypt(toIntArray(data, false), toIntArray(fixKey(key), false)), true);
     }
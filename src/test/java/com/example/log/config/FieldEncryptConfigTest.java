@@ -0,0 +1,68 @@
+package com.example.log.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class FieldEncryptConfigTest {
+
+    private static Properties tenantProperties(String cacheSize, String onMissingKey) {
+        Properties props = new Properties();
+        props.setProperty("encrypt.fields", "mobile,name");
+        props.setProperty("name.encrypt.type", "MASK");
+        props.setProperty("name.mask.prefix", "1");
+        props.setProperty("encrypt.tenant.mdcKey", "tenantId");
+        if (cacheSize != null) {
+            props.setProperty("encrypt.tenant.cacheSize", cacheSize);
+        }
+        if (onMissingKey != null) {
+            props.setProperty("encrypt.tenant.onMissingKey", onMissingKey);
+        }
+        return props;
+    }
+
+    @Test
+    void loadsFieldsAndOptions() {
+        FieldEncryptConfig config = FieldEncryptConfig.loadFromProperties(tenantProperties(null, null));
+        assertEquals("XXTEA", config.getEncryptFields().get("mobile").getEncryptType());
+        FieldEncryptConfig.EncryptField name = config.getEncryptFields().get("name");
+        assertEquals("MASK", name.getEncryptType());
+        assertEquals("1", name.getOptions().get("mask.prefix"));
+        assertEquals("tenantId", config.getTenantMdcKey());
+        assertEquals(256, config.getTenantCacheSize());
+        assertEquals("FAIL", config.getTenantOnMissingKey());
+    }
+
+    @Test
+    void ignoresTenantSettingsWithoutMdcKey() {
+        Properties props = tenantProperties("8", "DEFAULT");
+        props.remove("encrypt.tenant.mdcKey");
+        FieldEncryptConfig config = FieldEncryptConfig.loadFromProperties(props);
+        assertNull(config.getTenantMdcKey());
+        assertEquals(2, config.getEncryptFields().size());
+    }
+
+    @Test
+    void fallsBackOnInvalidTenantSettings() {
+        FieldEncryptConfig config = FieldEncryptConfig.loadFromProperties(tenantProperties("abc", "SHARED"));
+        assertEquals(256, config.getTenantCacheSize());
+        assertEquals("FAIL", config.getTenantOnMissingKey());
+        assertEquals(2, config.getEncryptFields().size());
+        assertEquals(256, FieldEncryptConfig.loadFromProperties(tenantProperties("-1", null)).getTenantCacheSize());
+    }
+
+    @Test
+    void parsesTenantSettings() {
+        FieldEncryptConfig config = FieldEncryptConfig.loadFromProperties(tenantProperties("8", "mask"));
+        assertEquals(8, config.getTenantCacheSize());
+        assertEquals("MASK", config.getTenantOnMissingKey());
+        assertEquals("DEFAULT", FieldEncryptConfig.loadFromProperties(tenantProperties(null, "DEFAULT")).getTenantOnMissingKey());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.log.convertor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.log.config.FieldEncryptConfig;
+import com.example.log.encrypt.Base64Encrypt;
+import com.example.log.encrypt.XXTeaEncrypt;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class FieldEncryptConverterTest {
+    private static final Pattern MOBILE = Pattern.compile(
+            String.format(new FieldEncryptConfig.EncryptField().getPatterns().get(0), "mobile"));
+
+    /**
+     * 改写为 [原值],值以 skip 开头或为空时先写入内容再返回false
+     */
+    private static final FieldEncryptConverter.ValueRewriter BRACKETS = (value, start, end, out) -> {
+        String text = value.subSequence(start, end).toString();
+        out.append('[').append(text).append(']');
+        return !text.startsWith("skip") && !text.isEmpty();
+    };
+
+    @Test
+    void encryptsValueInEveryStyle() {
+        XXTeaEncrypt strategy = new XXTeaEncrypt("a$fHDF&G;lNFj%ea");
+        String token = strategy.encrypt("13800000001");
+        assertEquals("user mobile:" + token, FieldEncryptConverter.encryptField("user mobile:13800000001", MOBILE, strategy));
+        assertEquals("Req(mobile=" + token + ", name=a)",
+                FieldEncryptConverter.encryptField("Req(mobile=13800000001, name=a)", MOBILE, strategy));
+        assertEquals("{\"mobile\":\"" + token + "\",\"i\":1}",
+                FieldEncryptConverter.encryptField("{\"mobile\":\"13800000001\",\"i\":1}", MOBILE, strategy));
+        assertEquals("{\\\"mobile\\\":\\\"" + token + "\\\"}",
+                FieldEncryptConverter.encryptField("{\\\"mobile\\\":\\\"13800000001\\\"}", MOBILE, strategy));
+    }
+
+    @Test
+    void returnsSameInstanceWithoutMatch() {
+        String message = "nothing to encrypt";
+        assertSame(message, FieldEncryptConverter.encryptField(message, MOBILE, new Base64Encrypt()));
+    }
+
+    @Test
+    void rewritesEveryMatch() {
+        assertEquals("mobile=[a], {\"mobile\":\"[b]\"}",
+                FieldEncryptConverter.rewriteField("mobile=a, {\"mobile\":\"b\"}", MOBILE, BRACKETS));
+    }
+
+    @Test
+    void keepsOriginalSpanWhenNotRewritten() {
+        String[] messages = {
+                "mobile=skip, x",
+                "x mobile: \"skip\"x, y",
+                "{\"mobile\":\"skip\"}",
+                "{\\\"mobile\\\":\\\"skip\\\"}",
+                "q mobile=\"\",r",
+                "mobile=",
+        };
+        for (String message : messages) {
+            assertEquals(message, FieldEncryptConverter.rewriteField(message, MOBILE, BRACKETS));
+        }
+    }
+
+    @Test
+    void keepsOnlyFailedMatches() {
+        assertEquals("mobile=[a], mobile=skip, mobile=[b]",
+                FieldEncryptConverter.rewriteField("mobile=a, mobile=skip, mobile=b", MOBILE, BRACKETS));
+    }
+}
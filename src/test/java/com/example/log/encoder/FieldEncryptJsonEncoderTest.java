@@ -0,0 +1,125 @@
+package com.example.log.encoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.log.encrypt.XXTeaEncrypt;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.CoreConstants;
+
+/**
+ * 使用 src/test/resources/field-encrypt.properties: mobile 为 XXTEA,name 为 MASK(保留首字符)
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+class FieldEncryptJsonEncoderTest {
+    private static final String MOBILE = "13800000001";
+    private static final String ENCRYPTED = new XXTeaEncrypt("a$fHDF&G;lNFj%ea").encrypt(MOBILE);
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("test");
+
+    private static FieldEncryptJsonEncoder encoder(boolean scanMessage) {
+        FieldEncryptJsonEncoder encoder = new FieldEncryptJsonEncoder();
+        encoder.setScanMessage(scanMessage);
+        encoder.start();
+        return encoder;
+    }
+
+    private String encode(FieldEncryptJsonEncoder encoder, Map<String, String> mdc, String message, Object... args) {
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, message, null, args);
+        event.setMDCPropertyMap(mdc);
+        String json = new String(encoder.encode(event), StandardCharsets.UTF_8);
+        assertTrue(json.endsWith("}" + CoreConstants.LINE_SEPARATOR), json);
+        return json;
+    }
+
+    private String encode(FieldEncryptJsonEncoder encoder, String message, Object... args) {
+        return encode(encoder, Collections.emptyMap(), message, args);
+    }
+
+    @Test
+    void escapesStrings() {
+        String json = encode(encoder(false), "a\"b\\c\nd\te\u0001f 张三😀");
+        assertTrue(json.contains("\"message\":\"a\\\"b\\\\c\\nd\\te\\u0001f 张三😀\""), json);
+        assertTrue(json.startsWith("{\"@timestamp\":\""), json);
+        assertTrue(json.contains(",\"level\":\"INFO\",\"thread\":\""), json);
+        assertTrue(json.contains(",\"logger\":\"test\","), json);
+    }
+
+    @Test
+    void nestsMdcAndEncryptsConfiguredKeys() {
+        Map<String, String> mdc = new LinkedHashMap<>();
+        mdc.put("mobile", MOBILE);
+        mdc.put("message", "from mdc");
+        mdc.put("name", "张三丰");
+        String json = encode(encoder(false), mdc, "hello");
+        assertTrue(json.contains("\"message\":\"hello\""), json);
+        assertTrue(json.contains("\"mdc\":{\"mobile\":\"" + ENCRYPTED + "\",\"message\":\"from mdc\",\"name\":\"张**\"}"), json);
+        assertFalse(json.contains(MOBILE), json);
+    }
+
+    @Test
+    void nestsArgumentsAndKeepsFirstDuplicate() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("mobile", MOBILE);
+        map.put("count", 3);
+        map.put("ratio", Double.NaN);
+        map.put("rate", Float.POSITIVE_INFINITY);
+        map.put("ok", true);
+        map.put("none", null);
+        String json = encode(encoder(false), "{} {}", map, new AbstractMap.SimpleEntry<>("mobile", "13900000000"));
+        assertTrue(json.contains("\"args\":{\"mobile\":\"" + ENCRYPTED + "\",\"count\":3,\"ratio\":\"NaN\","
+                + "\"rate\":\"Infinity\",\"ok\":true,\"none\":null}"), json);
+        assertFalse(json.contains("13900000000"), json);
+    }
+
+    @Test
+    void rendersMapArgumentsEncrypted() {
+        String json = encode(encoder(false), "下单成功 {}", Collections.singletonMap("mobile", MOBILE));
+        assertTrue(json.contains("\"message\":\"下单成功 {mobile=" + ENCRYPTED + "}\""), json);
+        assertFalse(json.contains(MOBILE), json);
+    }
+
+    @Test
+    void leavesFreeTextUnscannedByDefault() {
+        String json = encode(encoder(false), "user mobile:{}", MOBILE);
+        assertTrue(json.contains("\"message\":\"user mobile:" + MOBILE + "\""), json);
+    }
+
+    @Test
+    void scansMessageWhenEnabled() {
+        FieldEncryptJsonEncoder encoder = encoder(true);
+        String json = encode(encoder, "user mobile:{}", MOBILE);
+        assertTrue(json.contains("\"message\":\"user mobile:" + ENCRYPTED + "\""), json);
+
+        Object request = new Object() {
+            @Override
+            public String toString() {
+                return "Req(mobile=" + MOBILE + ", name=张三)";
+            }
+        };
+        json = encode(encoder, "req:{}", request);
+        assertTrue(json.contains("\"message\":\"req:Req(mobile=" + ENCRYPTED + ", name=张*)\""), json);
+
+        // Map 参数只加密一次
+        json = encode(encoder, "下单成功 {}", Collections.singletonMap("mobile", MOBILE));
+        assertTrue(json.contains("\"message\":\"下单成功 {mobile=" + ENCRYPTED + "}\""), json);
+        assertEquals(json.indexOf(ENCRYPTED), json.indexOf("{mobile=") + "{mobile=".length());
+        assertFalse(json.contains(MOBILE), json);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.log.encrypt;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class CipherEncodingTest {
+
+    @Test
+    void base64MatchesJdkEncoders() {
+        Random random = new Random(42);
+        for (int length = 0; length <= 64; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String base64 = CipherEncoding.BASE64.encode(data);
+            String base64Url = CipherEncoding.BASE64URL.encode(data);
+            assertEquals(Base64.getEncoder().encodeToString(data), base64);
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(data), base64Url);
+            assertEquals(base64.length(), CipherEncoding.BASE64.encodedLength(length));
+            assertEquals(base64Url.length(), CipherEncoding.BASE64URL.encodedLength(length));
+            assertArrayEquals(data, CipherEncoding.BASE64.decode(base64));
+            assertArrayEquals(data, CipherEncoding.BASE64URL.decode(base64Url));
+            assertEquals(length, CipherEncoding.BASE64.decodedLength(base64));
+            assertEquals(length, CipherEncoding.BASE64URL.decodedLength(base64Url));
+        }
+    }
+
+    @Test
+    void z85MatchesSpecVector() {
+        byte[] data = {(byte) 0x86, 0x4F, (byte) 0xD2, 0x6F, (byte) 0xB5, 0x59, (byte) 0xF7, 0x5B};
+        assertEquals("HelloWorld", CipherEncoding.Z85.encode(data));
+        assertArrayEquals(data, CipherEncoding.Z85.decode("HelloWorld"));
+    }
+
+    @Test
+    void z85RoundTrip() {
+        Random random = new Random(42);
+        for (int length = 0; length <= 64; length += 4) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String encoded = CipherEncoding.Z85.encode(data);
+            assertEquals(CipherEncoding.Z85.encodedLength(length), encoded.length());
+            assertEquals(length, CipherEncoding.Z85.decodedLength(encoded));
+            assertArrayEquals(data, CipherEncoding.Z85.decode(encoded));
+        }
+        byte[] max = {-1, -1, -1, -1};
+        assertArrayEquals(max, CipherEncoding.Z85.decode(CipherEncoding.Z85.encode(max)));
+    }
+
+    @Test
+    void z85RejectsUnalignedInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CipherEncoding.Z85.encode("abc".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void decodedLengthRejectsInvalidText() {
+        assertEquals(-1, CipherEncoding.BASE64.decodedLength("abcde"));
+        assertEquals(-1, CipherEncoding.BASE64.decodedLength("ab-_"));
+        assertEquals(-1, CipherEncoding.BASE64URL.decodedLength("ab+/"));
+        assertEquals(-1, CipherEncoding.BASE64.decodedLength("张三李四"));
+        assertEquals(-1, CipherEncoding.Z85.decodedLength("Hell"));
+        // 超过32位的块
+        assertEquals(-1, CipherEncoding.Z85.decodedLength("#####"));
+        assertThrows(IllegalArgumentException.class, () -> CipherEncoding.Z85.decode("#####"));
+    }
+
+    @Test
+    void ofDefaultsToBase64() {
+        assertEquals(CipherEncoding.BASE64, CipherEncoding.of(null));
+        assertEquals(CipherEncoding.BASE64, CipherEncoding.of(" "));
+        assertEquals(CipherEncoding.BASE64URL, CipherEncoding.of("base64url"));
+        assertEquals(CipherEncoding.Z85, CipherEncoding.of(" z85 "));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.log.encrypt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class MaskEncryptTest {
+
+    private static String mask(int prefix, int suffix, String value) {
+        return new MaskEncrypt(prefix, suffix, '*', 0).encrypt(value);
+    }
+
+    @Test
+    void keepsPrefixAndSuffix() {
+        assertEquals("139****3451", mask(3, 4, "13979923451"));
+        assertEquals("*******", mask(0, 0, "abcdefg"));
+        assertEquals("", mask(1, 1, ""));
+    }
+
+    @Test
+    void alwaysMasksAtLeastOneCharacter() {
+        assertEquals("*", mask(1, 1, "张"));
+        assertEquals("张*", mask(1, 1, "张三"));
+        assertEquals("张*丰", mask(1, 1, "张三丰"));
+        assertEquals("13*", mask(3, 4, "139"));
+        assertEquals("*", mask(0, 3, "a"));
+    }
+
+    @Test
+    void countsSurrogatePairsAsOneCharacter() {
+        assertEquals("𠀀*𠀂", mask(1, 1, "𠀀𠀁𠀂"));
+        assertEquals("𠀀*", mask(1, 1, "𠀀𠀁"));
+        assertEquals("*", mask(1, 1, "😀"));
+        assertEquals("a**😀", mask(1, 1, "a𠀀b😀"));
+        assertEquals("😀**", mask(1, 0, "😀张三"));
+        assertEquals("**𠀂", mask(0, 1, "张三𠀂"));
+    }
+
+    @Test
+    void supportsNonBmpMaskCharacter() {
+        assertEquals("张😀😀", new MaskEncrypt(1, 0, "😀".codePointAt(0), 0).encrypt("张三丰"));
+    }
+
+    @Test
+    void fixedWidthHidesLength() {
+        MaskEncrypt strategy = new MaskEncrypt(3, 4, '*', 4);
+        assertEquals("139****3451", strategy.encrypt("13979923451"));
+        assertEquals("139****2345", strategy.encrypt("139123412345"));
+        assertEquals("𠀀****", new MaskEncrypt(1, 1, '*', 4).encrypt("𠀀𠀁"));
+    }
+
+    @Test
+    void encryptRangeAppendsToBuffer() {
+        StringBuilder out = new StringBuilder("name=");
+        new MaskEncrypt(1, 0, '*', 0).encrypt("name=张三𠀀,", 5, 9, out);
+        assertEquals("name=张**", out.toString());
+    }
+
+    @Test
+    void masksEmptyRangeAsEmpty() {
+        StringBuilder out = new StringBuilder("mobile=");
+        new MaskEncrypt(3, 4, '*', 4).encrypt("mobile=,", 7, 7, out);
+        assertEquals("mobile=", out.toString());
+    }
+
+    @Test
+    void keepsSurrogatePairsAtRangeBoundaries() {
+        StringBuilder out = new StringBuilder();
+        new MaskEncrypt(1, 1, '*', 0).encrypt("x😀张三𠀀y", 1, 7, out);
+        assertEquals("😀**𠀀", out.toString());
+        assertEquals("😀**", mask(1, 0, "😀😀😀"));
+        assertEquals("**😀", mask(0, 1, "😀😀😀"));
+    }
+
+    @Test
+    void isIrreversible() {
+        MaskEncrypt strategy = new MaskEncrypt(1, 1, '*', 0);
+        assertNull(strategy.tryDecrypt("张*"));
+        assertThrows(UnsupportedOperationException.class, () -> strategy.decrypt("张*"));
+    }
+
+    @Test
+    void rejectsNegativeKeepLength() {
+        assertThrows(IllegalArgumentException.class, () -> new MaskEncrypt(-1, 0, '*', 0));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.log.encrypt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.log.util.XXTEAUtil;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class XXTeaEncryptTest {
+    private static final String KEY = "a$fHDF&G;lNFj%ea";
+
+    private static final List<String> VALUES = Arrays.asList(
+            "",
+            "1",
+            "a",
+            "张",
+            "123",
+            "0123",
+            "0000000",
+            "13979923451",
+            "12345678901234567890",
+            "lll@ll.com",
+            "张三",
+            "𠀀😀",
+            "a𠀀b😀c");
+
+    @Test
+    void roundTripForEveryEncodingAndPacking() {
+        for (CipherEncoding encoding : CipherEncoding.values()) {
+            for (boolean packDigits : new boolean[]{false, true}) {
+                XXTeaEncrypt strategy = new XXTeaEncrypt(KEY, encoding, packDigits);
+                for (String value : VALUES) {
+                    String message = encoding + ", packDigits=" + packDigits + ", value=" + value;
+                    String encrypted = strategy.encrypt(value);
+                    assertEquals(value, strategy.decrypt(encrypted), message);
+                    if (!value.isEmpty()) {
+                        assertEquals(value, strategy.tryDecrypt(encrypted), message);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void encryptRangeMatchesSubstring() {
+        for (CipherEncoding encoding : CipherEncoding.values()) {
+            XXTeaEncrypt strategy = new XXTeaEncrypt(KEY, encoding, true);
+            String text = "mobile=13979923451,name=张三𠀀";
+            StringBuilder out = new StringBuilder("prefix:");
+            strategy.encrypt(text, 7, 18, out);
+            assertTrue(out.toString().startsWith("prefix:"));
+            assertEquals("13979923451", strategy.decrypt(out.substring(7)));
+            out.setLength(0);
+            strategy.encrypt(text, 24, text.length(), out);
+            assertEquals("张三𠀀", strategy.decrypt(out.toString()));
+        }
+    }
+
+    @Test
+    void packDigitsShortensCipherText() {
+        XXTeaEncrypt plain = new XXTeaEncrypt(KEY, CipherEncoding.BASE64, false);
+        XXTeaEncrypt packed = new XXTeaEncrypt(KEY, CipherEncoding.BASE64, true);
+        String mobile = "13979923451";
+        assertTrue(packed.encrypt(mobile).length() < plain.encrypt(mobile).length());
+        // 非纯数字不压缩,与未开启时一致
+        assertEquals(plain.encrypt("1397992345a"), packed.encrypt("1397992345a"));
+    }
+
+    @Test
+    void decryptsLegacyToken() {
+        String legacy = XXTEAUtil.encryptToBase64String("13979923451", KEY);
+        assertEquals(legacy, new XXTeaEncrypt(KEY).encrypt("13979923451"));
+        assertEquals("13979923451", new XXTeaEncrypt(KEY).decrypt(legacy));
+        // 开启数字压缩后仍可解密历史密文
+        assertEquals("13979923451", new XXTeaEncrypt(KEY, CipherEncoding.BASE64, true).decrypt(legacy));
+        String legacyText = XXTEAUtil.encryptToBase64String("张三𠀀", KEY);
+        assertEquals("张三𠀀", new XXTeaEncrypt(KEY, CipherEncoding.BASE64, true).tryDecrypt(legacyText));
+    }
+
+    @Test
+    void tryDecryptReturnsNullForInvalidText() {
+        for (CipherEncoding encoding : CipherEncoding.values()) {
+            XXTeaEncrypt strategy = new XXTeaEncrypt(KEY, encoding, true);
+            assertNull(strategy.tryDecrypt(""), encoding.name());
+            assertNull(strategy.tryDecrypt("abc"), encoding.name());
+            assertNull(strategy.tryDecrypt("张三李四张三李四"), encoding.name());
+            assertNull(strategy.tryDecrypt("13979923451"), encoding.name());
+        }
+        // 使用其他密钥加密的密文
+        String other = new XXTeaEncrypt("another-key").encrypt("13979923451");
+        assertNull(new XXTeaEncrypt(KEY).tryDecrypt(other));
+    }
+}
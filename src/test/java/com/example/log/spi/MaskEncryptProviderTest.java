@@ -0,0 +1,49 @@
+package com.example.log.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.log.encrypt.EncryptStrategy;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class MaskEncryptProviderTest {
+
+    private static EncryptStrategy create(String... options) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < options.length; i += 2) {
+            map.put(options[i], options[i + 1]);
+        }
+        return EncryptStrategyFactory.createStrategy("MASK", null, map);
+    }
+
+    @Test
+    void readsOptions() {
+        assertEquals("139****3451", create("mask.prefix", "3", "mask.suffix", " 4 ").encrypt("13979923451"));
+        assertEquals("张#", create("mask.prefix", "1", "mask.char", "#").encrypt("张三"));
+        assertEquals("1😀😀", create("mask.prefix", "1", "mask.char", "😀").encrypt("123"));
+        assertEquals("1****", create("mask.prefix", "1", "mask.width", "4").encrypt("12"));
+        assertEquals("***", create("mask.char", "").encrypt("abc"));
+    }
+
+    @Test
+    void masksEverythingByDefault() {
+        assertEquals("***********", create().encrypt("13979923451"));
+        assertEquals("***********", EncryptStrategyFactory.createStrategy("MASK", null).encrypt("13979923451"));
+        assertFalse(EncryptStrategyFactory.isKeyRequired("MASK"));
+    }
+
+    @Test
+    void fallsBackToDefaultsOnInvalidNumbers() {
+        assertEquals("***********", create("mask.prefix", "a", "mask.suffix", "-4").encrypt("13979923451"));
+        assertEquals("139********", create("mask.prefix", "3", "mask.suffix", "4x").encrypt("13979923451"));
+        assertEquals("张**", create("mask.prefix", "1", "mask.width", "wide").encrypt("张三丰"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.log.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.log.config.FieldEncryptConfig;
+import com.example.log.encrypt.CipherEncoding;
+import com.example.log.encrypt.EncryptStrategy;
+import com.example.log.encrypt.XXTeaEncrypt;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class XXTeaEncryptProviderTest {
+    private static final String KEY = "a$fHDF&G;lNFj%ea";
+    private static final String MOBILE = "13979923451";
+
+    /**
+     * 与 field-encrypt.properties 相同的加载路径,字段配置以 mobile. 为前缀
+     */
+    private static EncryptStrategy create(String... properties) {
+        Properties props = new Properties();
+        props.setProperty("mobile.encrypt.key", KEY);
+        for (int i = 0; i < properties.length; i += 2) {
+            props.setProperty("mobile." + properties[i], properties[i + 1]);
+        }
+        FieldEncryptConfig.EncryptField field = FieldEncryptConfig.loadFromProperties(props).getEncryptFields().get("mobile");
+        return EncryptStrategyFactory.createStrategy(field.getEncryptType(), field.getEncryptKey(), field.getOptions());
+    }
+
+    private static String expected(CipherEncoding encoding, boolean packDigits) {
+        return new XXTeaEncrypt(KEY, encoding, packDigits).encrypt(MOBILE);
+    }
+
+    @Test
+    void readsEncodingAndPacking() {
+        assertEquals(expected(CipherEncoding.BASE64, false), create().encrypt(MOBILE));
+        assertEquals(expected(CipherEncoding.BASE64URL, true),
+                create("encrypt.encoding", "base64url", "encrypt.packDigits", "true").encrypt(MOBILE));
+    }
+
+    @Test
+    void fallsBackToBase64OnUnknownEncoding() {
+        assertEquals(expected(CipherEncoding.BASE64, false), create("encrypt.encoding", "BASE32").encrypt(MOBILE));
+    }
+
+    @Test
+    void replacesZ85WhenUsingDefaultPatterns() {
+        assertEquals(expected(CipherEncoding.BASE64URL, true),
+                create("encrypt.encoding", "Z85", "encrypt.packDigits", "true").encrypt(MOBILE));
+    }
+
+    @Test
+    void keepsZ85WithCustomPatterns() {
+        assertEquals(expected(CipherEncoding.Z85, true), create("encrypt.encoding", "Z85", "encrypt.packDigits", "true",
+                "patterns", "(\"%s\":\")([^\"]*)").encrypt(MOBILE));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.log.tenant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Properties;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * PROPERTIES 与 KEYSTORE 使用相同的查找和大小写规则
+ *
+ * @author liuzhixin
+ * @Description:
+ */
+class TenantKeySourceTest {
+    private static final String PASSWORD = "changeit";
+
+    @TempDir
+    Path dir;
+
+    private static void assertLookup(TenantKeySource keySource) {
+        assertEquals("key-a-mobile", keySource.getKey("LifeA", "mobile"));
+        assertEquals("key-a-mobile", keySource.getKey("lifea", "MOBILE"));
+        assertEquals("key-a", keySource.getKey("LIFEA", "idCard"));
+        assertEquals("key-b", keySource.getKey("healthB", "mobile"));
+        assertNull(keySource.getKey("unknown", "mobile"));
+    }
+
+    @Test
+    void propertiesLookupIgnoresCase() {
+        Properties props = new Properties();
+        props.setProperty("LifeA.mobile", "key-a-mobile");
+        props.setProperty("lifeA", "key-a");
+        props.setProperty("healthb", "key-b");
+        assertLookup(new PropertiesTenantKeySource(props));
+    }
+
+    @Test
+    void propertiesRejectsKeysDifferingOnlyInCase() {
+        Properties props = new Properties();
+        props.setProperty("LifeA", "key-1");
+        props.setProperty("lifea", "key-2");
+        assertThrows(IllegalArgumentException.class, () -> new PropertiesTenantKeySource(props));
+    }
+
+    @Test
+    void propertiesFailsOnMissingFile() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PropertiesTenantKeySource(dir.resolve("missing.properties").toString()));
+    }
+
+    @Test
+    void keyStoreLookupIgnoresCase() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, PASSWORD.toCharArray());
+        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBE");
+        KeyStore.PasswordProtection protection = new KeyStore.PasswordProtection(PASSWORD.toCharArray());
+        String[][] entries = {{"LifeA.mobile", "key-a-mobile"}, {"lifeA", "key-a"}, {"healthB", "key-b"}};
+        for (String[] entry : entries) {
+            keyStore.setEntry(entry[0], new KeyStore.SecretKeyEntry(
+                    factory.generateSecret(new PBEKeySpec(entry[1].toCharArray()))), protection);
+        }
+        Path path = dir.resolve("tenant-keys.p12");
+        try (OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+        assertLookup(new KeyStoreTenantKeySource(path.toString(), "PKCS12", PASSWORD));
+        assertThrows(IllegalArgumentException.class,
+                () -> new KeyStoreTenantKeySource(path.toString(), "PKCS12", "wrong"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.log.tenant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.log.config.FieldEncryptConfig;
+import com.example.log.encrypt.XXTeaEncrypt;
+import com.example.log.spi.TenantKeySourceFactory;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class TenantStrategyCacheTest {
+    private static final String DEFAULT_KEY = "a$fHDF&G;lNFj%ea";
+    private static final String MOBILE = "13800000001";
+
+    /**
+     * 记录每次查询的租户
+     */
+    private static class CountingKeySource implements TenantKeySource {
+        private final Map<String, String> keys = new HashMap<>();
+        private final List<String> loads = new ArrayList<>();
+
+        CountingKeySource with(String tenant, String key) {
+            keys.put(tenant, key);
+            return this;
+        }
+
+        @Override
+        public String getKey(String tenant, String fieldName) {
+            loads.add(tenant);
+            return keys.get(tenant);
+        }
+    }
+
+    private static FieldEncryptConfig.EncryptField field(String type) {
+        FieldEncryptConfig config = new FieldEncryptConfig();
+        config.addField("mobile", type, DEFAULT_KEY);
+        return config.getEncryptFields().get("mobile");
+    }
+
+    private static String encrypt(String key) {
+        return new XXTeaEncrypt(key).encrypt(MOBILE);
+    }
+
+    @Test
+    void usesTenantKey() {
+        CountingKeySource keySource = new CountingKeySource().with("lifeA", "key-a");
+        TenantStrategyCache cache = new TenantStrategyCache(field("XXTEA"), keySource, 16, "FAIL");
+        assertEquals(encrypt("key-a"), cache.get("lifeA").encrypt(MOBILE));
+        assertSame(cache.get("lifeA"), cache.get("lifeA"));
+        assertEquals(Collections.singletonList("lifeA"), keySource.loads);
+    }
+
+    @Test
+    void usesDefaultWithoutTenant() {
+        TenantStrategyCache cache = new TenantStrategyCache(field("XXTEA"), new CountingKeySource(), 16, "FAIL");
+        assertSame(cache.getDefault(), cache.get(null));
+        assertSame(cache.getDefault(), cache.get(""));
+        assertEquals(encrypt(DEFAULT_KEY), cache.get(null).encrypt(MOBILE));
+        // 未开启多租户
+        TenantStrategyCache disabled = new TenantStrategyCache(field("XXTEA"), null, 16, "FAIL");
+        assertSame(disabled.getDefault(), disabled.get("lifeA"));
+    }
+
+    @Test
+    void skipsKeyLookupForKeylessStrategy() {
+        CountingKeySource keySource = new CountingKeySource();
+        TenantStrategyCache cache = new TenantStrategyCache(field("MASK"), keySource, 16, "FAIL");
+        assertSame(cache.getDefault(), cache.get("lifeA"));
+        assertEquals(Collections.emptyList(), keySource.loads);
+    }
+
+    @Test
+    void failsClosedOnMissingKeyByDefault() {
+        TenantStrategyCache cache = new TenantStrategyCache(field("XXTEA"), new CountingKeySource(), 16, null);
+        assertEquals(TenantStrategyCache.MISSING_KEY, cache.get("unknown").encrypt(MOBILE));
+        StringBuilder out = new StringBuilder();
+        cache.get("unknown").encrypt("mobile=" + MOBILE, 7, 18, out);
+        assertEquals(TenantStrategyCache.MISSING_KEY, out.toString());
+    }
+
+    @Test
+    void masksOrUsesDefaultOnMissingKeyWhenConfigured() {
+        TenantStrategyCache mask = new TenantStrategyCache(field("XXTEA"), new CountingKeySource(), 16, "MASK");
+        assertEquals("***********", mask.get("unknown").encrypt(MOBILE));
+        TenantStrategyCache fallback = new TenantStrategyCache(field("XXTEA"), new CountingKeySource(), 16, "DEFAULT");
+        assertEquals(encrypt(DEFAULT_KEY), fallback.get("unknown").encrypt(MOBILE));
+    }
+
+    @Test
+    void failsClosedWhenKeySourceCannotLoad() {
+        FieldEncryptConfig config = new FieldEncryptConfig();
+        config.setTenantMdcKey("tenantId");
+        config.setTenantOptions(Collections.singletonMap("keyFile", "missing-tenant-keys.properties"));
+        TenantKeySource keySource = TenantKeySourceFactory.createKeySource(config);
+        TenantStrategyCache cache = new TenantStrategyCache(field("XXTEA"), keySource, 16, config.getTenantOnMissingKey());
+        assertEquals(TenantStrategyCache.MISSING_KEY, cache.get("lifeA").encrypt(MOBILE));
+    }
+
+    /**
+     * 访问时间按毫秒粒度更新,两次访问之间等待超过该粒度
+     */
+    private static void pause() throws InterruptedException {
+        Thread.sleep(3);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedTenant() throws InterruptedException {
+        CountingKeySource keySource = new CountingKeySource().with("a", "key-a").with("b", "key-b").with("c", "key-c");
+        TenantStrategyCache cache = new TenantStrategyCache(field("XXTEA"), keySource, 2, "FAIL");
+        cache.get("a");
+        pause();
+        cache.get("b");
+        pause();
+        cache.get("a");
+        pause();
+        cache.get("c");
+        // b 最久未使用被淘汰,a 仍在缓存中
+        cache.get("a");
+        assertEquals(encrypt("key-b"), cache.get("b").encrypt(MOBILE));
+        assertEquals(Arrays.asList("a", "b", "c", "b"), keySource.loads);
+    }
+
+    @Test
+    void keepsHotTenantUnderChurn() throws InterruptedException {
+        CountingKeySource keySource = new CountingKeySource().with("hot", "key-hot");
+        TenantStrategyCache cache = new TenantStrategyCache(field("XXTEA"), keySource, 8, "DEFAULT");
+        for (int i = 0; i < 100; i++) {
+            pause();
+            cache.get("hot");
+            cache.get("cold-" + i);
+        }
+        assertEquals(1, Collections.frequency(keySource.loads, "hot"));
+        assertEquals(encrypt("key-hot"), cache.get("hot").encrypt(MOBILE));
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.log.tool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.log.config.FieldEncryptConfig;
+import com.example.log.encrypt.XXTeaEncrypt;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class ReEncryptToolTest {
+    private static final String OLD_KEY = "a$fHDF&G;lNFj%ea";
+    private static final String NEW_KEY = "new-key-2026";
+
+    private final XXTeaEncrypt oldStrategy = new XXTeaEncrypt(OLD_KEY);
+    private final XXTeaEncrypt newStrategy = new XXTeaEncrypt(NEW_KEY);
+
+    @TempDir
+    Path dir;
+
+    private static FieldEncryptConfig config(String key) {
+        FieldEncryptConfig config = new FieldEncryptConfig();
+        config.addField("mobile", "XXTEA", key);
+        config.addField("name", "MASK", null);
+        return config;
+    }
+
+    private ReEncryptTool tool(String oldKey, int threads, int cacheSize) {
+        return new ReEncryptTool(config(oldKey), config(NEW_KEY), threads, cacheSize);
+    }
+
+    private static String mobile(int i) {
+        return String.valueOf(13800000000L + i % 500);
+    }
+
+    private List<String> log(int lines) {
+        List<String> result = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            result.add("i=" + i + " mobile=" + oldStrategy.encrypt(mobile(i)) + ", name=张*");
+        }
+        return result;
+    }
+
+    private void assertTranslated(List<String> output, int lines) {
+        assertEquals(lines, output.size());
+        for (int i = 0; i < lines; i++) {
+            String line = output.get(i);
+            String prefix = "i=" + i + " mobile=";
+            assertTrue(line.startsWith(prefix), line);
+            String token = line.substring(prefix.length(), line.indexOf(','));
+            assertEquals(mobile(i), newStrategy.decrypt(token), line);
+            assertTrue(line.endsWith(", name=张*"), line);
+        }
+    }
+
+    @Test
+    void keepsLineOrderAcrossChunks() throws Exception {
+        // 超过多个分块,缓存容量小于不同密文数以触发淘汰
+        int lines = 20000;
+        Path in = dir.resolve("app.log");
+        Files.write(in, log(lines), StandardCharsets.UTF_8);
+        Path out = dir.resolve("out");
+        Files.createDirectories(out);
+
+        ReEncryptTool tool = tool(OLD_KEY, 4, 64);
+        tool.run(Collections.singletonList(in), out);
+        assertEquals(0, tool.verify());
+        assertTranslated(Files.readAllLines(out.resolve("app.log"), StandardCharsets.UTF_8), lines);
+    }
+
+    @Test
+    void readsAndWritesGzip() throws Exception {
+        int lines = 3000;
+        Path in = dir.resolve("app.log.gz");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(in)), StandardCharsets.UTF_8)) {
+            for (String line : log(lines)) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        Path out = dir.resolve("out");
+        Files.createDirectories(out);
+
+        ReEncryptTool tool = tool(OLD_KEY, 2, 1000);
+        tool.run(Collections.singletonList(in), out);
+        assertEquals(0, tool.verify());
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(out.resolve("app.log.gz"))), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.add(line);
+            }
+        }
+        assertTranslated(output, lines);
+    }
+
+    @Test
+    void keepsValuesThatAreNotCipherText() throws Exception {
+        List<String> input = Arrays.asList(
+                "mobile=" + oldStrategy.encrypt("13800000001"),
+                "mobile=",
+                "q mobile=\"\",r",
+                "mobile=138****0001, x",
+                "no field here");
+        Path in = dir.resolve("mix.log");
+        Files.write(in, input, StandardCharsets.UTF_8);
+        Path out = dir.resolve("out");
+        Files.createDirectories(out);
+
+        ReEncryptTool tool = tool(OLD_KEY, 1, 10);
+        tool.run(Collections.singletonList(in), out);
+        assertEquals(0, tool.verify());
+        List<String> output = Files.readAllLines(out.resolve("mix.log"), StandardCharsets.UTF_8);
+        assertEquals("13800000001", newStrategy.decrypt(output.get(0).substring("mobile=".length())));
+        assertEquals(input.subList(1, input.size()), output.subList(1, output.size()));
+    }
+
+    @Test
+    void failsVerifyWithWrongOldKey() throws Exception {
+        Path in = dir.resolve("app.log");
+        Files.write(in, log(5), StandardCharsets.UTF_8);
+        Path out = dir.resolve("out");
+        Files.createDirectories(out);
+
+        ReEncryptTool tool = tool("a$fHDX&G;lNFj%ea", 2, 10);
+        tool.run(Collections.singletonList(in), out);
+        assertTrue(tool.verify() > 0);
+        assertArrayEquals(Files.readAllBytes(in), Files.readAllBytes(out.resolve("app.log")));
+    }
+
+    @Test
+    void rejectsMalformedCharsetAndRemovesOutput() throws Exception {
+        Charset gbk = Charset.forName("GBK");
+        Path in = dir.resolve("gbk.log");
+        String line = "mobile=" + oldStrategy.encrypt("13800000001") + ", name=张*";
+        Files.write(in, Collections.singletonList(line), gbk);
+        Path out = dir.resolve("out");
+        Files.createDirectories(out);
+
+        assertThrows(MalformedInputException.class,
+                () -> tool(OLD_KEY, 1, 10).run(Collections.singletonList(in), out));
+        assertFalse(Files.exists(out.resolve("gbk.log")));
+
+        ReEncryptTool tool = new ReEncryptTool(config(OLD_KEY), config(NEW_KEY), 1, 10, gbk);
+        tool.run(Collections.singletonList(in), out);
+        assertEquals(0, tool.verify());
+        String output = Files.readAllLines(out.resolve("gbk.log"), gbk).get(0);
+        assertTrue(output.endsWith(", name=张*"), output);
+    }
+
+    @Test
+    void rejectsDuplicateOutputNames() throws IOException {
+        Path a = Files.createDirectories(dir.resolve("a")).resolve("app.log");
+        Path b = Files.createDirectories(dir.resolve("b")).resolve("app.log");
+        for (Path path : Arrays.asList(a, b)) {
+            try (OutputStream os = Files.newOutputStream(path)) {
+                os.write("mobile=1\n".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Path out = Files.createDirectories(dir.resolve("out"));
+        assertThrows(IllegalArgumentException.class, () -> tool(OLD_KEY, 1, 10).run(Arrays.asList(a, b), out));
+        assertFalse(Files.exists(out.resolve("app.log")));
+    }
+}
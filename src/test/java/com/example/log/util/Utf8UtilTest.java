@@ -0,0 +1,46 @@
+package com.example.log.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author liuzhixin
+ * @Description:
+ */
+class Utf8UtilTest {
+
+    private static void assertSameAsJdk(String value) {
+        assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), Utf8Util.encode(value, 0, value.length()), value);
+    }
+
+    @Test
+    void matchesStringGetBytes() {
+        assertSameAsJdk("");
+        assertSameAsJdk("a");
+        assertSameAsJdk("13979923451");
+        assertSameAsJdk("é£ü");
+        assertSameAsJdk("张三");
+        assertSameAsJdk("߿ࠀ￿");
+        assertSameAsJdk("𠀀😀");
+        assertSameAsJdk("a𠀀b😀c\u0000");
+    }
+
+    @Test
+    void replacesLoneSurrogatesLikeJdk() {
+        assertSameAsJdk("\uD800");
+        assertSameAsJdk("a\uDC00b");
+        assertSameAsJdk("\uDC00\uD800");
+        assertSameAsJdk("😀\uD83D");
+    }
+
+    @Test
+    void encodesRange() {
+        StringBuilder sb = new StringBuilder("name=张三😀,");
+        assertArrayEquals("张三😀".getBytes(StandardCharsets.UTF_8), Utf8Util.encode(sb, 5, 9));
+        // 范围在代理对中间截断时,与对子串编码一致
+        assertArrayEquals(sb.substring(5, 8).getBytes(StandardCharsets.UTF_8), Utf8Util.encode(sb, 5, 8));
+    }
+}